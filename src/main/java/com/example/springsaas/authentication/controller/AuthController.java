@@ -2,6 +2,7 @@ package com.example.springsaas.authentication.controller;
 
 import com.example.springsaas.authentication.dto.AuthResponse;
 import com.example.springsaas.authentication.dto.LoginRequest;
+import com.example.springsaas.authentication.dto.RefreshTokenRequest;
 import com.example.springsaas.authentication.dto.RegisterRequest;
 import com.example.springsaas.authentication.service.AuthenticationService;
 import jakarta.validation.Valid;
@@ -26,6 +27,17 @@ public class AuthController {
         return ResponseEntity.ok(authService.login(request));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/verify-email")
     public ResponseEntity<String> verifyEmail(@RequestParam String token) {
         try {
@@ -0,0 +1,34 @@
+package com.example.springsaas.authentication.controller;
+
+import com.example.springsaas.config.JwtSigningProperties;
+import com.example.springsaas.security.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * Publishes the public signing keys so proxies and other services can verify access tokens
+ * without calling this service. The document only changes on restart.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+    private final JwtSigningProperties signingProperties;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks(WebRequest request) {
+        if (request.checkNotModified(keyRing.jwksEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(signingProperties.getJwksMaxAge()).cachePublic())
+                .eTag(keyRing.jwksEtag())
+                .body(keyRing.jwksJson());
+    }
+}
@@ -5,7 +5,6 @@ import com.example.springsaas.authentication.dto.UpdatePasswordRequest;
 import com.example.springsaas.authentication.dto.UpdateProfileRequest;
 import com.example.springsaas.authentication.entity.User;
 import com.example.springsaas.authentication.service.UserProfileService;
-import com.example.springsaas.security.JwtService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -21,15 +20,12 @@ import org.springframework.web.bind.annotation.*;
 public class UserProfileController {
 
     private final UserProfileService userProfileService;
-    private final JwtService jwtService;
 
     @GetMapping("/me")
     public ResponseEntity<AuthResponse> getCurrentUser() {
         User user = userProfileService.getCurrentUser();
-        String token = jwtService.generateToken(user);
         
         return ResponseEntity.ok(AuthResponse.builder()
-                .token(token)
                 .id(user.getId())
                 .email(user.getEmail())
                 .firstName(user.getFirstName())
@@ -76,10 +72,8 @@ public class UserProfileController {
             @PathVariable Long userId,
             @Valid @RequestBody UpdateProfileRequest request) {
         User updatedUser = userProfileService.updateProfile(userId, request);
-        String token = jwtService.generateToken(updatedUser);
         
         return ResponseEntity.ok(AuthResponse.builder()
-                .token(token)
                 .id(updatedUser.getId())
                 .email(updatedUser.getEmail())
                 .firstName(updatedUser.getFirstName())
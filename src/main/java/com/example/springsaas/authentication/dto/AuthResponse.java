@@ -13,6 +13,8 @@ import java.util.Set;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
+    private Long expiresIn;
     private String type = "Bearer";
     private Long id;
     private String email;
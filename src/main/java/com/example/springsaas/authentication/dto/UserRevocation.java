@@ -0,0 +1,6 @@
+package com.example.springsaas.authentication.dto;
+
+import java.time.LocalDateTime;
+
+public record UserRevocation(Long userId, LocalDateTime revokedAt) {
+}
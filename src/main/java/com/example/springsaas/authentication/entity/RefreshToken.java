@@ -0,0 +1,60 @@
+package com.example.springsaas.authentication.entity;
+
+import com.example.springsaas.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * One refresh token of a login session. Only the SHA-256 hash of the token is stored. Every
+ * refresh rotates the token within its family; presenting a rotated token again revokes the
+ * whole family.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = "user")
+@Entity
+@Table(name = "refresh_tokens",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = "token_hash")
+        },
+        indexes = {
+                @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+                @Index(name = "idx_refresh_tokens_family", columnList = "family_id")
+        })
+public class RefreshToken extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "token_hash", nullable = false, length = 43)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column
+    private LocalDateTime rotatedAt;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
+    @Column
+    @Enumerated(EnumType.STRING)
+    private RevocationReason revocationReason;
+
+    public enum RevocationReason {
+        LOGOUT,
+        REUSE_DETECTED,
+        CREDENTIALS_CHANGED
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.springsaas.authentication.entity;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Roles are stored as a bit set in {@code users.role_mask}. The immutable name and authority
+ * sets of every possible mask are built once, so principals never allocate them.
+ */
+public enum Role {
+
+    // The bit is persisted: never change or reuse one
+    ROLE_USER(0),
+    ROLE_ADMIN(1);
+
+    private static final int MASK_COUNT;
+    private static final int ALL;
+    private static final Set<String>[] NAMES;
+    private static final Set<GrantedAuthority>[] AUTHORITIES;
+
+    static {
+        int all = 0;
+        for (Role role : values()) {
+            all |= role.mask();
+        }
+        ALL = all;
+        MASK_COUNT = Integer.highestOneBit(all) << 1;
+        @SuppressWarnings("unchecked")
+        Set<String>[] names = (Set<String>[]) new Set<?>[MASK_COUNT];
+        @SuppressWarnings("unchecked")
+        Set<GrantedAuthority>[] authorities = (Set<GrantedAuthority>[]) new Set<?>[MASK_COUNT];
+        for (int mask = 0; mask < MASK_COUNT; mask++) {
+            Set<Role> roles = rolesOf(mask);
+            names[mask] = roles.stream().map(Role::name).collect(Collectors.toUnmodifiableSet());
+            authorities[mask] = roles.stream()
+                    .map(role -> new SimpleGrantedAuthority(role.name()))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        NAMES = names;
+        AUTHORITIES = authorities;
+    }
+
+    private final int bit;
+
+    Role(int bit) {
+        this.bit = bit;
+    }
+
+    public int mask() {
+        return 1 << bit;
+    }
+
+    public boolean in(int mask) {
+        return (mask & mask()) != 0;
+    }
+
+    public static Set<String> namesOf(int mask) {
+        return NAMES[mask & ALL];
+    }
+
+    public static Set<GrantedAuthority> authoritiesOf(int mask) {
+        return AUTHORITIES[mask & ALL];
+    }
+
+    /**
+     * Mask of the given role names; names that are not a {@link Role} are ignored.
+     */
+    public static int maskOf(Collection<?> names) {
+        int mask = 0;
+        for (Role role : values()) {
+            if (names.contains(role.name())) {
+                mask |= role.mask();
+            }
+        }
+        return mask;
+    }
+
+    private static Set<Role> rolesOf(int mask) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        for (Role role : values()) {
+            if (role.in(mask)) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+}
@@ -9,14 +9,11 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Data
 @NoArgsConstructor
@@ -49,13 +46,16 @@ public class User extends BaseEntity implements UserDetails {
     @Column(nullable = false)
     private boolean enabled = false;
 
-    @Column
+    // Written only by LoginActivityRecorder
+    @Column(updatable = false)
     private LocalDateTime lastLoginDate;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "role")
-    private Set<String> roles = new HashSet<>();
+    @Column(updatable = false, columnDefinition = "bigint not null default 0")
+    private long loginCount;
+
+    // Bit set of Role, so loading a user is a single-row read
+    @Column(name = "role_mask", nullable = false, columnDefinition = "integer not null default 0")
+    private int roleMask;
 
     @Column
     private String resetPasswordToken;
@@ -77,15 +77,29 @@ public class User extends BaseEntity implements UserDetails {
         this.lastName = lastName;
         this.email = email;
         this.password = password;
-        this.roles.add("ROLE_USER");
+        this.roleMask = Role.ROLE_USER.mask();
+    }
+
+    public Set<String> getRoles() {
+        return Role.namesOf(roleMask);
+    }
+
+    public boolean hasRole(Role role) {
+        return role.in(roleMask);
+    }
+
+    public void addRole(Role role) {
+        roleMask |= role.mask();
+    }
+
+    public void removeRole(Role role) {
+        roleMask &= ~role.mask();
     }
 
     @Override
     @JsonIgnore
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return roles.stream()
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toSet());
+        return Role.authoritiesOf(roleMask);
     }
 
     @Override
@@ -0,0 +1,37 @@
+package com.example.springsaas.authentication.entity;
+
+import com.example.springsaas.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * The latest time all access tokens of a user were revoked, one row per user. Every node
+ * reads new rows into its {@code AccessTokenRevocations}, whether or not the user had any
+ * refresh token left to revoke.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@ToString(exclude = "user")
+@Entity
+@Table(name = "user_token_revocations",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = "user_id")
+        },
+        indexes = {
+                @Index(name = "idx_user_token_revocations_revoked_at", columnList = "revoked_at")
+        })
+public class UserTokenRevocation extends BaseEntity {
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -0,0 +1,45 @@
+package com.example.springsaas.authentication.repository;
+
+import com.example.springsaas.authentication.entity.RefreshToken;
+import com.example.springsaas.authentication.entity.RefreshToken.RevocationReason;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @Query("select t from RefreshToken t join fetch t.user where t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
+    /**
+     * Claims {@code id} for rotation. Returns 0 if another request rotated or revoked it first.
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.rotatedAt = :now, t.updatedAt = :now " +
+            "where t.id = :id and t.rotatedAt is null and t.revokedAt is null")
+    int markRotated(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now, t.revocationReason = :reason, t.updatedAt = :now " +
+            "where t.familyId = :familyId and t.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId,
+                     @Param("reason") RevocationReason reason,
+                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :now, t.revocationReason = :reason, t.updatedAt = :now " +
+            "where t.user.id = :userId and t.revokedAt is null")
+    int revokeAllForUser(@Param("userId") Long userId,
+                         @Param("reason") RevocationReason reason,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :expiredBefore")
+    int deleteByExpiresAtBefore(@Param("expiredBefore") LocalDateTime expiredBefore);
+}
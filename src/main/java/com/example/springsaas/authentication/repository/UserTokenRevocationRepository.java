@@ -0,0 +1,33 @@
+package com.example.springsaas.authentication.repository;
+
+import com.example.springsaas.authentication.dto.UserRevocation;
+import com.example.springsaas.authentication.entity.UserTokenRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserTokenRevocationRepository extends JpaRepository<UserTokenRevocation, Long> {
+
+    /**
+     * Creates or advances the revocation row of {@code userId}. The id takes a whole block of
+     * the pooled sequence, as Hibernate never allocates from it for this table.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO user_token_revocations (id, user_id, revoked_at, created_at, updated_at, version) " +
+            "VALUES (nextval('user_token_revocation_seq'), :userId, :now, :now, :now, 0) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "revoked_at = GREATEST(user_token_revocations.revoked_at, EXCLUDED.revoked_at), " +
+            "updated_at = EXCLUDED.updated_at, version = user_token_revocations.version + 1",
+            nativeQuery = true)
+    int upsert(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    @Query("select new com.example.springsaas.authentication.dto.UserRevocation(r.user.id, r.revokedAt) " +
+            "from UserTokenRevocation r where r.revokedAt > :since")
+    List<UserRevocation> findRevokedSince(@Param("since") LocalDateTime since);
+}
@@ -28,6 +28,8 @@ public class AuthenticationService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final EmailService emailService;
+    private final RefreshTokenService refreshTokenService;
+    private final LoginActivityRecorder loginActivityRecorder;
 
     @Value("${app.frontend-url}")
     private String frontendUrl;
@@ -57,47 +59,40 @@ public class AuthenticationService {
         String verificationLink = frontendUrl + "/auth/auth/verify-email?token=" + verificationToken;
         emailService.sendVerificationEmail(user.getEmail(), user.getFirstName(), verificationLink);
         
-        var jwtToken = jwtService.generateToken(user);
-        
-        return AuthResponse.builder()
-                .token(jwtToken)
-                .id(savedUser.getId())
-                .email(savedUser.getEmail())
-                .firstName(savedUser.getFirstName())
-                .lastName(savedUser.getLastName())
-                .roles(savedUser.getRoles())
-                .enabled(savedUser.isEnabled())
-                .build();
+        return tokenResponse(savedUser, refreshTokenService.issue(savedUser));
     }
 
     public AuthResponse login(LoginRequest request) {
-        authenticationManager.authenticate(
+        var authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getEmail(),
                         request.getPassword()
                 )
         );
 
-        var user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new AuthenticationException("User not found"));
+        // The provider already loaded the user through CustomUserDetailsService
+        var user = (User) authentication.getPrincipal();
+        loginActivityRecorder.recordLogin(user.getId());
 
-        user.setLastLoginDate(LocalDateTime.now());
-        userRepository.save(user);
+        return tokenResponse(user, refreshTokenService.issue(user));
+    }
 
-        var jwtToken = jwtService.generateToken(user);
-        
-        return AuthResponse.builder()
-                .token(jwtToken)
-                .id(user.getId())
-                .email(user.getEmail())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .roles(user.getRoles())
-                .enabled(user.isEnabled())
-                .build();
+    /**
+     * Exchanges a refresh token for a new access token and a rotated refresh token. The user is
+     * reloaded here, so the new access token carries current roles and status.
+     */
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public AuthResponse refresh(String refreshToken) {
+        var rotated = refreshTokenService.rotate(refreshToken);
+        return tokenResponse(rotated.user(), rotated.refreshToken());
     }
 
-    @Transactional
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
+    }
+
+    // The expired-token branch throws after issuing a new token; that token and its email must still commit
+    @Transactional(noRollbackFor = AuthenticationException.class)
     public void verifyEmail(String token) {
         var user = userRepository.findByVerificationToken(token)
                 .orElseThrow(() -> new AuthenticationException("Invalid verification token"));
@@ -173,5 +168,20 @@ public class AuthenticationService {
         user.setResetPasswordToken(null);
         user.setResetPasswordTokenExpiry(null);
         userRepository.save(user);
+        refreshTokenService.revokeAllForUser(user.getId());
+    }
+
+    private AuthResponse tokenResponse(User user, String refreshToken) {
+        return AuthResponse.builder()
+                .token(jwtService.generateAccessToken(user))
+                .refreshToken(refreshToken)
+                .expiresIn(jwtService.getAccessTokenTtl().toSeconds())
+                .id(user.getId())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .roles(user.getRoles())
+                .enabled(user.isEnabled())
+                .build();
     }
 } 
\ No newline at end of file
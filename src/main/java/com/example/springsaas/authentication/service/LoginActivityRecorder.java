@@ -0,0 +1,120 @@
+package com.example.springsaas.authentication.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects logins in memory and writes them out periodically as one UPDATE per chunk of users,
+ * so the login path itself never writes. The update keeps the latest timestamp and adds the
+ * counts, which makes flushes from several nodes commute. It bypasses JPA and {@code @Version};
+ * {@code User.lastLoginDate} and {@code loginCount} are not updatable through the entity.
+ */
+@Slf4j
+@Component
+public class LoginActivityRecorder implements MetricsSource {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<Long, PendingLogins> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushedUsers = new LongAdder();
+    private final AtomicLong lastFlushMillis = new AtomicLong();
+
+    public LoginActivityRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void recordLogin(Long userId) {
+        pending.merge(userId, new PendingLogins(LocalDateTime.now(), 1), PendingLogins::combine);
+        recorded.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.login-activity.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Map.Entry<Long, PendingLogins>> batch = new ArrayList<>(pending.size());
+        for (Long userId : pending.keySet()) {
+            // remove() is atomic per key: a login racing with it lands in a fresh entry for the next flush
+            PendingLogins logins = pending.remove(userId);
+            if (logins != null) {
+                batch.add(Map.entry(userId, logins));
+            }
+        }
+
+        for (int from = 0; from < batch.size(); from += CHUNK_SIZE) {
+            List<Map.Entry<Long, PendingLogins>> chunk = batch.subList(from, Math.min(batch.size(), from + CHUNK_SIZE));
+            try {
+                update(chunk);
+                flushedUsers.add(chunk.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush login activity for {} users, will retry", chunk.size(), e);
+                chunk.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), PendingLogins::combine));
+            }
+        }
+        lastFlushMillis.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void update(List<Map.Entry<Long, PendingLogins>> chunk) {
+        StringBuilder sql = new StringBuilder("UPDATE users AS u SET "
+                + "last_login_date = GREATEST(u.last_login_date, v.last_login), "
+                + "login_count = u.login_count + v.logins "
+                + "FROM (VALUES ");
+        List<Object> args = new ArrayList<>(chunk.size() * 3);
+        for (int i = 0; i < chunk.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?::bigint, ?::timestamp, ?::bigint)");
+            Map.Entry<Long, PendingLogins> entry = chunk.get(i);
+            args.add(entry.getKey());
+            args.add(Timestamp.valueOf(entry.getValue().lastLogin()));
+            args.add(entry.getValue().count());
+        }
+        sql.append(") AS v(id, last_login, logins) WHERE u.id = v.id");
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    @Override
+    public String metricsName() {
+        return "auth.login-activity";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "pendingUsers", pending.size(),
+                "recordedLogins", recorded.sum(),
+                "flushedUsers", flushedUsers.sum(),
+                "lastFlushMs", lastFlushMillis.get());
+    }
+
+    private record PendingLogins(LocalDateTime lastLogin, long count) {
+
+        PendingLogins combine(PendingLogins other) {
+            LocalDateTime latest = lastLogin.isAfter(other.lastLogin) ? lastLogin : other.lastLogin;
+            return new PendingLogins(latest, count + other.count);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.springsaas.authentication.service;
+
+import com.example.springsaas.authentication.dto.UserRevocation;
+import com.example.springsaas.authentication.entity.RefreshToken;
+import com.example.springsaas.authentication.entity.RefreshToken.RevocationReason;
+import com.example.springsaas.authentication.entity.User;
+import com.example.springsaas.authentication.exception.AuthenticationException;
+import com.example.springsaas.authentication.repository.RefreshTokenRepository;
+import com.example.springsaas.authentication.repository.UserTokenRevocationRepository;
+import com.example.springsaas.common.crypto.Sha256;
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.security.AccessTokenRevocations;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Issues and rotates opaque refresh tokens. Each login starts a token family; a refresh
+ * rotates the presented token, and presenting an already rotated token again revokes the whole
+ * family together with the user's outstanding access tokens.
+ * <p>
+ * Revocations of a user's access tokens are recorded in {@code user_token_revocations} and
+ * picked up by every node, so they are rejected cluster-wide within one sync interval.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService implements MetricsSource {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserTokenRevocationRepository userTokenRevocationRepository;
+    private final AccessTokenRevocations revocations;
+    private final SecureRandom random = new SecureRandom();
+    private final Duration refreshTokenTtl;
+    private final Duration syncOverlap;
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder rotated = new LongAdder();
+    private final LongAdder reuseDetected = new LongAdder();
+
+    private volatile LocalDateTime syncedUpTo;
+
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            UserTokenRevocationRepository userTokenRevocationRepository,
+            AccessTokenRevocations revocations,
+            @Value("${jwt.refresh-token.ttl-ms:2592000000}") long refreshTokenTtlMillis,
+            @Value("${jwt.access-token.ttl-ms:900000}") long accessTokenTtlMillis,
+            @Value("${jwt.revocations.sync-overlap-ms:5000}") long syncOverlapMillis) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userTokenRevocationRepository = userTokenRevocationRepository;
+        this.revocations = revocations;
+        this.refreshTokenTtl = Duration.ofMillis(refreshTokenTtlMillis);
+        this.syncOverlap = Duration.ofMillis(syncOverlapMillis);
+        // revocations older than one access token lifetime no longer cover a live token
+        this.syncedUpTo = LocalDateTime.now().minus(Duration.ofMillis(accessTokenTtlMillis));
+    }
+
+    public record RotatedToken(User user, String refreshToken) {
+    }
+
+    /**
+     * Starts a new token family for {@code user} and returns the raw refresh token.
+     */
+    @Transactional
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString(), LocalDateTime.now());
+    }
+
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public RotatedToken rotate(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenHash(Sha256.base64Url(rawToken))
+                .orElseThrow(() -> new AuthenticationException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.getRevokedAt() != null) {
+            throw new AuthenticationException("Refresh token has been revoked");
+        }
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new AuthenticationException("Refresh token has expired");
+        }
+        if (!current.getUser().isEnabled()) {
+            throw new AuthenticationException("Account is not enabled");
+        }
+        if (current.getRotatedAt() != null || refreshTokenRepository.markRotated(current.getId(), now) == 0) {
+            // Either a stolen token is being replayed or its rightful owner is; revoke the session for both
+            reuseDetected.increment();
+            log.warn("Refresh token reuse detected for user {}, revoking token family", current.getUser().getId());
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), RevocationReason.REUSE_DETECTED, now);
+            revokeAccessTokens(current.getUser().getId(), now);
+            throw new AuthenticationException("Refresh token has already been used");
+        }
+
+        rotated.increment();
+        User user = current.getUser();
+        return new RotatedToken(user, issue(user, current.getFamilyId(), now));
+    }
+
+    /**
+     * Ends the session of {@code rawToken}. Access tokens already issued to it stay valid until
+     * they expire.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(Sha256.base64Url(rawToken)).ifPresent(token ->
+                refreshTokenRepository.revokeFamily(token.getFamilyId(), RevocationReason.LOGOUT, LocalDateTime.now()));
+    }
+
+    /**
+     * Ends every session of the user and rejects their outstanding access tokens, e.g. after a
+     * password change.
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        refreshTokenRepository.revokeAllForUser(userId, RevocationReason.CREDENTIALS_CHANGED, now);
+        revokeAccessTokens(userId, now);
+    }
+
+    // Recorded even if no refresh token was left to revoke, so other nodes still see it
+    private void revokeAccessTokens(Long userId, LocalDateTime now) {
+        userTokenRevocationRepository.upsert(userId, now);
+        revocations.revokeAfterCommit(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocations.sync-interval-ms:10000}")
+    public void syncRevocations() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<UserRevocation> changes = userTokenRevocationRepository.findRevokedSince(syncedUpTo.minus(syncOverlap));
+        ZoneId zone = ZoneId.systemDefault();
+        for (UserRevocation change : changes) {
+            revocations.revoke(change.userId(), change.revokedAt().atZone(zone).toInstant());
+        }
+        syncedUpTo = startedAt;
+    }
+
+    @Scheduled(cron = "${jwt.refresh-token.prune-cron:0 45 3 * * ?}")
+    @Transactional
+    public void pruneExpiredTokens() {
+        int deleted = refreshTokenRepository.deleteByExpiresAtBefore(LocalDateTime.now());
+        log.info("Pruned {} expired refresh tokens", deleted);
+    }
+
+    private String issue(User user, String familyId, LocalDateTime now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(Sha256.base64Url(rawToken));
+        token.setFamilyId(familyId);
+        token.setExpiresAt(now.plus(refreshTokenTtl));
+        refreshTokenRepository.save(token);
+        issued.increment();
+        return rawToken;
+    }
+
+    @Override
+    public String metricsName() {
+        return "auth.refresh-tokens";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "issued", issued.sum(),
+                "rotated", rotated.sum(),
+                "reuseDetected", reuseDetected.sum(),
+                "revocationsSyncedUpTo", syncedUpTo.toString());
+    }
+}
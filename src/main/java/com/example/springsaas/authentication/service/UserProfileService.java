@@ -2,13 +2,14 @@ package com.example.springsaas.authentication.service;
 
 import com.example.springsaas.authentication.dto.UpdatePasswordRequest;
 import com.example.springsaas.authentication.dto.UpdateProfileRequest;
+import com.example.springsaas.authentication.entity.Role;
 import com.example.springsaas.authentication.entity.User;
 import com.example.springsaas.authentication.repository.UserRepository;
+import com.example.springsaas.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,15 +20,15 @@ public class UserProfileService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
 
     @Transactional
     public User updateProfile(Long userId, UpdateProfileRequest request) {
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        
         // Check if the user is trying to update their own profile
-        if (!currentUser.getId().equals(userId)) {
+        if (!AuthenticatedUser.current().getId().equals(userId)) {
             throw new RuntimeException("You can only update your own profile");
         }
+        User currentUser = getCurrentUser();
 
         // Check if the new email is already taken by another user
         if (!currentUser.getEmail().equals(request.getEmail()) && 
@@ -44,12 +45,11 @@ public class UserProfileService {
 
     @Transactional
     public void updatePassword(Long userId, UpdatePasswordRequest request) {
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        
         // Check if the user is trying to update their own password
-        if (!currentUser.getId().equals(userId)) {
+        if (!AuthenticatedUser.current().getId().equals(userId)) {
             throw new RuntimeException("You can only update your own password");
         }
+        User currentUser = getCurrentUser();
 
         // Verify current password
         if (!passwordEncoder.matches(request.getCurrentPassword(), currentUser.getPassword())) {
@@ -64,17 +64,19 @@ public class UserProfileService {
         // Update password
         currentUser.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(currentUser);
+        refreshTokenService.revokeAllForUser(currentUser.getId());
     }
 
     public User getCurrentUser() {
-        return (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        return userRepository.findById(AuthenticatedUser.current().getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
     public User getUserDetails(Long userId) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = AuthenticatedUser.current();
         
         // Allow access if user is requesting their own details or has ADMIN role
-        if (!currentUser.getId().equals(userId) && !currentUser.getRoles().contains("ROLE_ADMIN")) {
+        if (!currentUser.getId().equals(userId) && !currentUser.hasRole(Role.ROLE_ADMIN)) {
             throw new AccessDeniedException("You don't have permission to view this user's details");
         }
         
@@ -83,10 +85,10 @@ public class UserProfileService {
     }
 
     public Page<User> getAllUsers(Pageable pageable) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = AuthenticatedUser.current();
         
         // Only allow admins to list all users
-        if (!currentUser.getRoles().contains("ROLE_ADMIN")) {
+        if (!currentUser.hasRole(Role.ROLE_ADMIN)) {
             throw new AccessDeniedException("Only administrators can view all users");
         }
         
@@ -0,0 +1,206 @@
+package com.example.springsaas.common.collection;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing {@code long -> int} hash map (linear probing, load factor <= 0.5) with no
+ * boxing on either side. Reads are lock-free in the common case via {@link StampedLock}
+ * optimistic reads; writes take the write lock. Key {@code 0} is reserved as the empty marker.
+ */
+public final class ConcurrentLongIntMap {
+
+    private static final long EMPTY = 0L;
+
+    private final StampedLock lock = new StampedLock();
+    private Table table;
+    private int size;
+
+    public ConcurrentLongIntMap(int expectedSize) {
+        this.table = new Table(capacityFor(expectedSize));
+    }
+
+    public int get(long key, int missingValue) {
+        if (key == EMPTY) {
+            // would otherwise match the first empty slot
+            return missingValue;
+        }
+        long stamp = lock.tryOptimisticRead();
+        int value = table.find(key, missingValue);
+        if (lock.validate(stamp)) {
+            return value;
+        }
+        stamp = lock.readLock();
+        try {
+            return table.find(key, missingValue);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void put(long key, int value) {
+        checkKey(key);
+        long stamp = lock.writeLock();
+        try {
+            if ((size + 1) * 2 > table.keys.length) {
+                table = table.resize(table.keys.length * 2);
+            }
+            if (table.insert(key, value)) {
+                size++;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long key) {
+        checkKey(key);
+        long stamp = lock.writeLock();
+        try {
+            if (table.delete(key)) {
+                size--;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Atomically replaces the whole content with {@code keys[i] -> values[i]}.
+     */
+    public void replaceAll(long[] keys, int[] values, int count) {
+        Table replacement = new Table(capacityFor(count));
+        int inserted = 0;
+        for (int i = 0; i < count; i++) {
+            checkKey(keys[i]);
+            if (replacement.insert(keys[i], values[i])) {
+                inserted++;
+            }
+        }
+        long stamp = lock.writeLock();
+        try {
+            table = replacement;
+            size = inserted;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static void checkKey(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = 16;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    // keys and values live in one object so an optimistic reader never pairs arrays of different sizes
+    private static final class Table {
+
+        final long[] keys;
+        final int[] values;
+        final int mask;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        int find(long key, int missingValue) {
+            int index = mix(key) & mask;
+            // bounded so a reader racing a writer always terminates; the caller revalidates
+            for (int probes = 0; probes <= mask; probes++) {
+                long candidate = keys[index];
+                if (candidate == key) {
+                    return values[index];
+                }
+                if (candidate == EMPTY) {
+                    return missingValue;
+                }
+                index = (index + 1) & mask;
+            }
+            return missingValue;
+        }
+
+        boolean insert(long key, int value) {
+            int index = mix(key) & mask;
+            while (true) {
+                long candidate = keys[index];
+                if (candidate == key) {
+                    values[index] = value;
+                    return false;
+                }
+                if (candidate == EMPTY) {
+                    keys[index] = key;
+                    values[index] = value;
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+        }
+
+        boolean delete(long key) {
+            int index = mix(key) & mask;
+            while (keys[index] != key) {
+                if (keys[index] == EMPTY) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            // backward-shift deletion keeps probe chains intact without tombstones
+            int hole = index;
+            int next = hole;
+            while (true) {
+                next = (next + 1) & mask;
+                long candidate = keys[next];
+                if (candidate == EMPTY) {
+                    break;
+                }
+                int home = mix(candidate) & mask;
+                boolean stays = hole <= next
+                        ? hole < home && home <= next
+                        : hole < home || home <= next;
+                if (!stays) {
+                    keys[hole] = candidate;
+                    values[hole] = values[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = EMPTY;
+            values[hole] = 0;
+            return true;
+        }
+
+        Table resize(int capacity) {
+            Table resized = new Table(capacity);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    resized.insert(keys[i], values[i]);
+                }
+            }
+            return resized;
+        }
+    }
+}
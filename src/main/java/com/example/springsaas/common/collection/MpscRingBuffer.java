@@ -0,0 +1,70 @@
+package com.example.springsaas.common.collection;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer. Producers claim a
+ * slot with one CAS on the tail; the consumer publishes freed capacity through a volatile
+ * head. {@link #offer} fails instead of blocking when the buffer is full.
+ */
+public final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    public MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        while (true) {
+            long currentTail = tail.get();
+            if (currentTail - head >= slots.length()) {
+                return false;
+            }
+            if (tail.compareAndSet(currentTail, currentTail + 1)) {
+                slots.lazySet((int) currentTail & mask, element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code max} elements to {@code consumer}. Must only be called from one thread
+     * at a time. Stops early at a slot that was claimed but not yet written.
+     */
+    public int drain(Consumer<E> consumer, int max) {
+        long currentHead = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) currentHead & mask;
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            currentHead++;
+            drained++;
+            consumer.accept(element);
+        }
+        head = currentHead;
+        return drained;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
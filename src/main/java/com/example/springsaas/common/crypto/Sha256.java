@@ -0,0 +1,31 @@
+package com.example.springsaas.common.crypto;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * SHA-256 digests. Every JVM must provide SHA-256, so its absence is reported unchecked.
+ */
+public final class Sha256 {
+
+    private Sha256() {
+    }
+
+    public static byte[] digest(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Digest of the UTF-8 bytes of {@code value}, URL-safe Base64 without padding (43 characters).
+     */
+    public static String base64Url(String value) {
+        byte[] hashed = digest(value.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hashed);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.springsaas.common.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed, roughly logarithmic buckets. Percentiles are reported
+ * as the upper bound of the bucket they fall in, which is precise enough for dashboards and
+ * alerting on remote calls.
+ */
+public final class LatencyHistogram {
+
+    private static final long[] BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BOUNDS_MS.length && millis > BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Upper bound in milliseconds of the bucket holding the {@code quantile} (0..1), or
+     * {@code -1} for samples above the last bound.
+     */
+    public long percentileMillis(double quantile) {
+        long[] counts = counts();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS_MS.length ? BOUNDS_MS[i] : -1;
+            }
+        }
+        return -1;
+    }
+
+    public Map<String, Object> snapshot() {
+        long samples = count.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", samples);
+        snapshot.put("meanMs", samples == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalNanos.sum() / samples));
+        snapshot.put("maxMs", TimeUnit.NANOSECONDS.toMillis(maxNanos.get()));
+        snapshot.put("p50Ms", percentileMillis(0.50));
+        snapshot.put("p95Ms", percentileMillis(0.95));
+        snapshot.put("p99Ms", percentileMillis(0.99));
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long[] counts = counts();
+        for (int i = 0; i < counts.length; i++) {
+            histogram.put(i < BOUNDS_MS.length ? "le" + BOUNDS_MS[i] + "ms" : "inf", counts[i]);
+        }
+        snapshot.put("buckets", histogram);
+        return snapshot;
+    }
+
+    private long[] counts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+}
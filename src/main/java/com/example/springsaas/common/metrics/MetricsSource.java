@@ -0,0 +1,13 @@
+package com.example.springsaas.common.metrics;
+
+import java.util.Map;
+
+/**
+ * Implemented by components that publish runtime counters on the admin metrics endpoint.
+ */
+public interface MetricsSource {
+
+    String metricsName();
+
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,157 @@
+package com.example.springsaas.common.migration;
+
+import com.example.springsaas.common.crypto.Sha256;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies versioned SQL scripts ({@code V<version>__<description>.sql}) on top of the schema
+ * Hibernate maintains, recording each one in {@code schema_migrations}. Runs once the
+ * EntityManagerFactory has finished its DDL update, under an advisory lock so only one node
+ * migrates at a time. Editing an applied script is an error.
+ */
+@Slf4j
+@Component
+public class SchemaMigrationRunner {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String LOCK_NAME = "schema-migrations";
+
+    private final DataSource dataSource;
+    private final boolean enabled;
+    private final String locations;
+
+    public SchemaMigrationRunner(
+            DataSource dataSource,
+            // Depend on the EntityManagerFactory so its ddl-auto update runs first
+            EntityManagerFactory entityManagerFactory,
+            @Value("${schema.migrations.enabled:true}") boolean enabled,
+            @Value("${schema.migrations.locations:classpath*:db/migration/V*__*.sql}") String locations) {
+        this.dataSource = dataSource;
+        this.enabled = enabled;
+        this.locations = locations;
+    }
+
+    @PostConstruct
+    public void migrate() throws IOException, SQLException {
+        if (!enabled) {
+            return;
+        }
+        List<Migration> migrations = discover();
+
+        try (Connection connection = dataSource.getConnection()) {
+            execute(connection, "SELECT pg_advisory_lock(hashtext('" + LOCK_NAME + "'))");
+            try {
+                execute(connection, """
+                        CREATE TABLE IF NOT EXISTS schema_migrations (
+                            version     integer PRIMARY KEY,
+                            description text        NOT NULL,
+                            checksum    text        NOT NULL,
+                            applied_at  timestamptz NOT NULL DEFAULT now()
+                        )""");
+                Map<Integer, String> applied = appliedChecksums(connection);
+
+                for (Migration migration : migrations) {
+                    String recorded = applied.get(migration.version());
+                    if (recorded == null) {
+                        apply(connection, migration);
+                    } else if (!recorded.equals(migration.checksum())) {
+                        throw new IllegalStateException("Migration V" + migration.version()
+                                + " was modified after it was applied");
+                    }
+                }
+            } finally {
+                execute(connection, "SELECT pg_advisory_unlock(hashtext('" + LOCK_NAME + "'))");
+            }
+        }
+    }
+
+    private List<Migration> discover() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(locations)) {
+            Matcher matcher = FILE_NAME.matcher(resource.getFilename() == null ? "" : resource.getFilename());
+            if (!matcher.matches()) {
+                continue;
+            }
+            migrations.add(new Migration(
+                    Integer.parseInt(matcher.group(1)),
+                    matcher.group(2).replace('_', ' '),
+                    checksum(resource),
+                    resource.getContentAsString(StandardCharsets.UTF_8)));
+        }
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        return migrations;
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        log.info("Applying schema migration V{}: {}", migration.version(), migration.description());
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            // Sent as one multi-statement string; the driver splits it and understands $$ quoting
+            execute(connection, migration.sql());
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)")) {
+                statement.setInt(1, migration.version());
+                statement.setString(2, migration.description());
+                statement.setString(3, migration.checksum());
+                statement.executeUpdate();
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new IllegalStateException("Schema migration V" + migration.version() + " failed", e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private Map<Integer, String> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (resultSet.next()) {
+                applied.put(resultSet.getInt(1), resultSet.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String checksum(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return HexFormat.of().formatHex(Sha256.digest(in.readAllBytes()));
+        }
+    }
+
+    private record Migration(int version, String description, String checksum, String sql) {
+    }
+}
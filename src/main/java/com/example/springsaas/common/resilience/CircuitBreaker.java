@@ -0,0 +1,149 @@
+package com.example.springsaas.common.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. Opens when the failure rate over the last {@code windowSize}
+ * calls reaches the threshold, rejects calls while open, and lets a single probe through after
+ * {@code openDuration} to decide whether to close again. A probe that has not reported back
+ * within {@code probeTimeout} is written off and the next call probes instead.
+ * <p>
+ * Meant for remote calls that take milliseconds, so plain synchronization is cheap enough.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final long probeTimeoutNanos;
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long probeStartedAt;
+    private long timesOpened;
+    private long rejected;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, Duration probeTimeout) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDuration, probeTimeout, System::nanoTime);
+    }
+
+    CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                   Duration openDuration, Duration probeTimeout, LongSupplier nanoTime) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("minimumCalls must be between 1 and windowSize");
+        }
+        this.window = new boolean[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.probeTimeoutNanos = probeTimeout.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Returns whether a call may proceed. Every permitted call must be followed by
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public synchronized boolean tryAcquire() {
+        long now = nanoTime.getAsLong();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt >= openNanos) {
+                    state = State.HALF_OPEN;
+                    return startProbe(now);
+                }
+                break;
+            case HALF_OPEN:
+                // A probe that never reported back must not keep the breaker half-open forever
+                if (!probeInFlight || now - probeStartedAt >= probeTimeoutNanos) {
+                    return startProbe(now);
+                }
+                break;
+        }
+        rejected++;
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                open();
+            }
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized long timesOpened() {
+        return timesOpened;
+    }
+
+    public synchronized long rejected() {
+        return rejected;
+    }
+
+    private boolean startProbe(long now) {
+        probeInFlight = true;
+        probeStartedAt = now;
+        return true;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoTime.getAsLong();
+        probeInFlight = false;
+        timesOpened++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probeInFlight = false;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.springsaas.config;
+
+import com.example.springsaas.email.service.EmailDispatchMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+
+    /**
+     * Bounded pool for SMTP work. When the queue is full the submitting thread runs the
+     * task itself, which slows callers down instead of dropping mail.
+     */
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor(
+            EmailDispatchMetrics metrics,
+            @Value("${app.email.executor.core-size:2}") int coreSize,
+            @Value("${app.email.executor.max-size:8}") int maxSize,
+            @Value("${app.email.executor.queue-capacity:500}") int queueCapacity,
+            @Value("${app.email.executor.shutdown-timeout-seconds:30}") int shutdownTimeoutSeconds) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("email-");
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(maxSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(shutdownTimeoutSeconds);
+        executor.setTaskDecorator(task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                metrics.recordQueueWait(System.nanoTime() - submittedAt);
+                task.run();
+            };
+        });
+        executor.initialize();
+        metrics.bind(executor.getThreadPoolExecutor());
+        return executor;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.springsaas.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "jwt.signing")
+public class JwtSigningProperties {
+
+    /**
+     * RS256 or ES256. All keys of the ring use the same algorithm.
+     */
+    private String algorithm = "ES256";
+
+    /**
+     * {@code kid} of the key new tokens are signed with. Must have a private key.
+     */
+    private String activeKeyId;
+
+    /**
+     * Every key whose tokens may still be live. Retired keys only need the public key.
+     * Startup fails without any keys unless {@link #generateDevKey} is set.
+     */
+    private List<Key> keys = new ArrayList<>();
+
+    /**
+     * Without configured keys, generate a throwaway key pair at startup instead of failing.
+     * Development only: its tokens do not survive a restart and other nodes reject them.
+     */
+    private boolean generateDevKey = false;
+
+    /**
+     * How long clients may cache the JWKS document.
+     */
+    private Duration jwksMaxAge = Duration.ofMinutes(15);
+
+    @Data
+    public static class Key {
+
+        private String id;
+
+        /**
+         * PKCS#8 PEM ({@code BEGIN PRIVATE KEY}).
+         */
+        private String privateKey;
+
+        /**
+         * X.509 PEM ({@code BEGIN PUBLIC KEY}).
+         */
+        private String publicKey;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.springsaas.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on live buckets; once reached, new keys of a route share one overflow bucket.
+     */
+    private int maxBuckets = 100_000;
+
+    /**
+     * Minimum time between idle-bucket sweeps run on the request path while the map is full.
+     */
+    private Duration inlineSweepInterval = Duration.ofSeconds(1);
+
+    /**
+     * Number of reverse proxies in front of the app that append to X-Forwarded-For. The client IP
+     * is the address the outermost of them saw: the entry this many places from the right. With
+     * 0 the header is ignored and the connection's remote address is used. Entries further left
+     * are written by the client and never trusted.
+     */
+    private int trustedProxies = 0;
+
+    /**
+     * Largest JSON body buffered to read the {@code email} of an EMAIL-keyed route; larger
+     * bodies on such routes are rejected with 413.
+     */
+    private int maxBodyBytes = 16 * 1024;
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Data
+    public static class Route {
+
+        private String method = "POST";
+
+        /**
+         * Exact path, or a prefix ending in {@code /**}.
+         */
+        private String path;
+
+        /**
+         * Burst size: requests allowed back to back from a full bucket.
+         */
+        private int capacity = 10;
+
+        /**
+         * Time to refill the whole bucket.
+         */
+        private Duration period = Duration.ofMinutes(1);
+
+        private Set<KeyType> keys = EnumSet.of(KeyType.IP);
+    }
+
+    public enum KeyType {
+        IP,
+        EMAIL,
+        USER
+    }
+}
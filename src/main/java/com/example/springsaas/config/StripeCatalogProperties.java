@@ -0,0 +1,20 @@
+package com.example.springsaas.config;
+
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stripe.catalog")
+public class StripeCatalogProperties {
+
+    /**
+     * Stripe price id sold for each plan.
+     */
+    private Map<SubscriptionPlan, String> prices = new EnumMap<>(SubscriptionPlan.class);
+}
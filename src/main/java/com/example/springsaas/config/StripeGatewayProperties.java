@@ -0,0 +1,77 @@
+package com.example.springsaas.config;
+
+import com.example.springsaas.payment.service.StripeOperation;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stripe.gateway")
+public class StripeGatewayProperties {
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Settings of operations not listed under {@code operations}.
+     */
+    private Operation defaults = new Operation();
+
+    private Map<StripeOperation, Operation> operations = new EnumMap<>(StripeOperation.class);
+
+    /**
+     * First retry backoff; doubles per attempt up to {@code maxRetryDelay}, with full jitter.
+     */
+    private Duration baseRetryDelay = Duration.ofMillis(200);
+
+    private Duration maxRetryDelay = Duration.ofSeconds(2);
+
+    /**
+     * How long a call waits for a bulkhead permit before failing fast.
+     */
+    private Duration bulkheadWait = Duration.ofMillis(100);
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    public Operation settingsFor(StripeOperation operation) {
+        return operations.getOrDefault(operation, defaults);
+    }
+
+    @Data
+    public static class Operation {
+
+        private Duration readTimeout = Duration.ofSeconds(10);
+
+        /**
+         * Attempts including the first; only transient failures are retried.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Bulkhead: concurrent calls allowed for the operation.
+         */
+        private int maxConcurrent = 20;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+
+        private int windowSize = 50;
+
+        private int minimumCalls = 20;
+
+        private double failureRateThreshold = 0.5;
+
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * After this long without a result, the half-open probe is written off and another call
+         * may probe. Should exceed the longest read timeout plus the connect timeout.
+         */
+        private Duration probeTimeout = Duration.ofSeconds(20);
+    }
+}
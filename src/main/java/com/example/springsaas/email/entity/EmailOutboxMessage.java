@@ -0,0 +1,67 @@
+package com.example.springsaas.email.entity;
+
+import com.example.springsaas.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "email_outbox",
+        indexes = {
+                @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+        })
+public class EmailOutboxMessage extends BaseEntity {
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false)
+    private String templateName;
+
+    @Column(columnDefinition = "text")
+    private String templateVariables;
+
+    @Column(columnDefinition = "text")
+    private String inlineResources;
+
+    @Column
+    private String attachmentFilename;
+
+    @Column(columnDefinition = "bytea")
+    private byte[] attachmentData;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private LocalDateTime claimedAt;
+
+    @Column
+    private LocalDateTime sentAt;
+
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+    public enum OutboxStatus {
+        PENDING,
+        SENDING,
+        SENT,
+        FAILED
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.springsaas.email.repository;
+
+import com.example.springsaas.email.entity.EmailOutboxMessage;
+import com.example.springsaas.email.entity.EmailOutboxMessage.OutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    @Query(value = """
+            UPDATE email_outbox o
+               SET status = 'SENDING', claimed_at = :now, updated_at = :now,
+                   attempts = o.attempts + 1, version = o.version + 1
+             WHERE o.id IN (
+                   SELECT c.id FROM email_outbox c
+                    WHERE c.status = 'PENDING'
+                      AND c.next_attempt_at <= :now
+                    ORDER BY c.next_attempt_at, c.id
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<EmailOutboxMessage> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update EmailOutboxMessage m set m.status = :pending, m.claimedAt = null " +
+            "where m.status = :sending and m.claimedAt < :claimedBefore")
+    int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore,
+                           @Param("sending") OutboxStatus sending,
+                           @Param("pending") OutboxStatus pending);
+
+    long countByStatus(OutboxStatus status);
+}
@@ -0,0 +1,68 @@
+package com.example.springsaas.email.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Component
+public class EmailDispatchMetrics implements MetricsSource {
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+    private final AtomicLong maxSendNanos = new AtomicLong();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+
+    private volatile ThreadPoolExecutor executor;
+
+    public void bind(ThreadPoolExecutor executor) {
+        this.executor = executor;
+    }
+
+    public void recordQueueWait(long nanos) {
+        queued.increment();
+        queueWaitNanos.add(nanos);
+    }
+
+    public void recordSent(long nanos) {
+        sent.increment();
+        recordLatency(nanos);
+    }
+
+    public void recordFailed(long nanos) {
+        failed.increment();
+        recordLatency(nanos);
+    }
+
+    private void recordLatency(long nanos) {
+        sendNanos.add(nanos);
+        maxSendNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public String metricsName() {
+        return "email.dispatch";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long attempts = sent.sum() + failed.sum();
+        long dequeued = queued.sum();
+        ThreadPoolExecutor pool = executor;
+        return Map.of(
+                "sent", sent.sum(),
+                "failed", failed.sum(),
+                "avgSendMillis", attempts == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(sendNanos.sum() / attempts) / 1000.0,
+                "maxSendMillis", TimeUnit.NANOSECONDS.toMillis(maxSendNanos.get()),
+                "avgQueueWaitMillis", dequeued == 0 ? 0.0 : TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum() / dequeued) / 1000.0,
+                "queueDepth", pool == null ? 0 : pool.getQueue().size(),
+                "activeThreads", pool == null ? 0 : pool.getActiveCount()
+        );
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.springsaas.email.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.config.AsyncConfig;
+import com.example.springsaas.email.entity.EmailOutboxMessage;
+import com.example.springsaas.email.entity.EmailOutboxMessage.OutboxStatus;
+import com.example.springsaas.email.repository.EmailOutboxRepository;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers committed outbox rows. Each batch is handed to
+ * {@link JavaMailSender#send(MimeMessage...)}, which reuses one SMTP connection for
+ * the whole batch. Failed messages are retried with jittered exponential backoff.
+ */
+@Slf4j
+@Component
+public class EmailOutboxRelay implements MetricsSource {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailRenderer renderer;
+    private final JavaMailSender emailSender;
+    private final EmailDispatchMetrics dispatchMetrics;
+    private final TaskExecutor emailExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long claimTimeoutMillis;
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final AtomicLong lastBatchMessagesPerSecond = new AtomicLong();
+
+    public EmailOutboxRelay(
+            EmailOutboxRepository outboxRepository,
+            EmailRenderer renderer,
+            JavaMailSender emailSender,
+            EmailDispatchMetrics dispatchMetrics,
+            @Qualifier(AsyncConfig.EMAIL_EXECUTOR) TaskExecutor emailExecutor,
+            PlatformTransactionManager transactionManager,
+            @Value("${app.email.outbox.batch-size:50}") int batchSize,
+            @Value("${app.email.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.email.outbox.base-backoff-ms:5000}") long baseBackoffMillis,
+            @Value("${app.email.outbox.max-backoff-ms:3600000}") long maxBackoffMillis,
+            @Value("${app.email.outbox.claim-timeout-ms:600000}") long claimTimeoutMillis) {
+        this.outboxRepository = outboxRepository;
+        this.renderer = renderer;
+        this.emailSender = emailSender;
+        this.dispatchMetrics = dispatchMetrics;
+        this.emailExecutor = emailExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+    }
+
+    /**
+     * Schedules a drain on the email executor unless one is already running.
+     */
+    public void trigger() {
+        if (draining.compareAndSet(false, true)) {
+            emailExecutor.execute(this::drainAndReset);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:10000}")
+    public void poll() {
+        trigger();
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.claim-timeout-ms:600000}")
+    public void releaseStaleClaims() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(claimTimeoutMillis * 1_000_000);
+        Integer released = transactionTemplate.execute(status ->
+                outboxRepository.releaseStaleClaims(cutoff, OutboxStatus.SENDING, OutboxStatus.PENDING));
+        if (released != null && released > 0) {
+            log.warn("Released {} outbox emails whose claim timed out", released);
+        }
+    }
+
+    private void drainAndReset() {
+        try {
+            List<EmailOutboxMessage> batch;
+            do {
+                batch = transactionTemplate.execute(status ->
+                        outboxRepository.claimDue(LocalDateTime.now(), batchSize));
+                if (batch != null && !batch.isEmpty()) {
+                    sendBatch(batch);
+                }
+            } while (batch != null && batch.size() == batchSize);
+        } catch (Exception e) {
+            log.error("Email outbox drain failed", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private void sendBatch(List<EmailOutboxMessage> batch) {
+        Map<MimeMessage, EmailOutboxMessage> byMime = new IdentityHashMap<>();
+        Map<Long, String> failures = new HashMap<>();
+
+        for (EmailOutboxMessage outboxMessage : batch) {
+            try {
+                byMime.put(renderer.render(outboxMessage), outboxMessage);
+            } catch (Exception e) {
+                failures.put(outboxMessage.getId(), "Render failed: " + e.getMessage());
+            }
+        }
+
+        long start = System.nanoTime();
+        if (!byMime.isEmpty()) {
+            try {
+                emailSender.send(byMime.keySet().toArray(new MimeMessage[0]));
+            } catch (MailSendException e) {
+                if (e.getFailedMessages().isEmpty()) {
+                    // Connection-level failure: nothing in the batch went out
+                    byMime.values().forEach(m -> failures.put(m.getId(), e.getMessage()));
+                } else {
+                    e.getFailedMessages().forEach((failed, cause) -> {
+                        EmailOutboxMessage outboxMessage = byMime.get(failed);
+                        if (outboxMessage != null) {
+                            failures.put(outboxMessage.getId(), cause.getMessage());
+                        }
+                    });
+                }
+            } catch (Exception e) {
+                byMime.values().forEach(m -> failures.put(m.getId(), e.getMessage()));
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> sentIds = new ArrayList<>();
+        for (EmailOutboxMessage outboxMessage : batch) {
+            if (!failures.containsKey(outboxMessage.getId())) {
+                sentIds.add(outboxMessage.getId());
+            }
+        }
+        recordOutcome(sentIds, failures);
+
+        batches.increment();
+        delivered.add(sentIds.size());
+        if (!byMime.isEmpty()) {
+            long perMessage = elapsed / byMime.size();
+            sentIds.forEach(id -> dispatchMetrics.recordSent(perMessage));
+            failures.keySet().forEach(id -> dispatchMetrics.recordFailed(perMessage));
+            lastBatchMessagesPerSecond.set(elapsed == 0 ? 0 : sentIds.size() * 1_000_000_000L / elapsed);
+        }
+        log.debug("Email outbox batch: {} sent, {} failed in {} ms", sentIds.size(), failures.size(), elapsed / 1_000_000);
+    }
+
+    private void recordOutcome(List<Long> sentIds, Map<Long, String> failures) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            outboxRepository.findAllById(sentIds).forEach(message -> {
+                message.setStatus(OutboxStatus.SENT);
+                message.setSentAt(now);
+                message.setClaimedAt(null);
+                message.setLastError(null);
+            });
+            outboxRepository.findAllById(failures.keySet()).forEach(message -> {
+                message.setClaimedAt(null);
+                message.setLastError(failures.get(message.getId()));
+                if (message.getAttempts() >= maxAttempts) {
+                    message.setStatus(OutboxStatus.FAILED);
+                    abandoned.increment();
+                    log.error("Giving up on email {} to {} after {} attempts: {}",
+                            message.getId(), message.getRecipient(), message.getAttempts(), message.getLastError());
+                } else {
+                    message.setStatus(OutboxStatus.PENDING);
+                    message.setNextAttemptAt(now.plusNanos(backoffMillis(message.getAttempts()) * 1_000_000));
+                    retried.increment();
+                }
+            });
+        });
+    }
+
+    private long backoffMillis(int attempts) {
+        long exponential = baseBackoffMillis << Math.min(attempts - 1, 20);
+        long capped = Math.min(exponential, maxBackoffMillis);
+        // Jitter in [capped/2, capped] so retries from one outage spread out
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    @Override
+    public String metricsName() {
+        return "email.outbox";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "batches", batches.sum(),
+                "delivered", delivered.sum(),
+                "retried", retried.sum(),
+                "abandoned", abandoned.sum(),
+                "lastBatchMessagesPerSecond", lastBatchMessagesPerSecond.get()
+        );
+    }
+}
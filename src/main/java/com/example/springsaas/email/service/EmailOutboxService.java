@@ -0,0 +1,49 @@
+package com.example.springsaas.email.service;
+
+import com.example.springsaas.email.entity.EmailOutboxMessage;
+import com.example.springsaas.email.entity.EmailOutboxMessage.OutboxStatus;
+import com.example.springsaas.email.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailOutboxRelay relay;
+    private final EmailRenderer renderer;
+
+    /**
+     * Records an email in the caller's transaction. Nothing is sent unless that
+     * transaction commits; the relay is nudged right after the commit.
+     */
+    @Transactional
+    public void enqueue(String to, String subject, String templateName, Map<String, Object> variables,
+                        Map<String, String> inlineResources, String attachmentFilename, byte[] attachmentData) {
+        EmailOutboxMessage message = new EmailOutboxMessage();
+        message.setRecipient(to);
+        message.setSubject(subject);
+        message.setTemplateName(templateName);
+        message.setTemplateVariables(renderer.writeJson(variables));
+        message.setInlineResources(renderer.writeJson(inlineResources));
+        message.setAttachmentFilename(attachmentFilename);
+        message.setAttachmentData(attachmentData);
+        message.setStatus(OutboxStatus.PENDING);
+        message.setNextAttemptAt(LocalDateTime.now());
+        outboxRepository.save(message);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.trigger();
+            }
+        });
+    }
+}
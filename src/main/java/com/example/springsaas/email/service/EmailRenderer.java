@@ -0,0 +1,85 @@
+package com.example.springsaas.email.service;
+
+import com.example.springsaas.email.entity.EmailOutboxMessage;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.Map;
+
+/**
+ * Turns a stored outbox row into a MIME message ready for SMTP.
+ */
+@Component
+@RequiredArgsConstructor
+public class EmailRenderer {
+
+    private static final TypeReference<Map<String, Object>> VARIABLES_TYPE = new TypeReference<>() {
+    };
+    private static final TypeReference<Map<String, String>> RESOURCES_TYPE = new TypeReference<>() {
+    };
+
+    private final JavaMailSender emailSender;
+    private final TemplateEngine templateEngine;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.mail.username}")
+    private String fromEmail;
+
+    public MimeMessage render(EmailOutboxMessage outboxMessage) throws MessagingException {
+        MimeMessage message = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        Context context = new Context();
+        context.setVariables(readJson(outboxMessage.getTemplateVariables(), VARIABLES_TYPE));
+        String htmlContent = templateEngine.process(outboxMessage.getTemplateName(), context);
+
+        helper.setFrom(fromEmail);
+        helper.setTo(outboxMessage.getRecipient());
+        helper.setSubject(outboxMessage.getSubject());
+        helper.setText(htmlContent, true);
+
+        // Add inline resources (images)
+        for (Map.Entry<String, String> entry : readJson(outboxMessage.getInlineResources(), RESOURCES_TYPE).entrySet()) {
+            helper.addInline(entry.getKey(), resourceLoader.getResource(entry.getValue()));
+        }
+
+        if (outboxMessage.getAttachmentData() != null) {
+            helper.addAttachment(outboxMessage.getAttachmentFilename(),
+                    new ByteArrayResource(outboxMessage.getAttachmentData()));
+        }
+
+        return message;
+    }
+
+    String writeJson(Map<String, ?> value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize email data", e);
+        }
+    }
+
+    private <T extends Map<String, ?>> T readJson(String json, TypeReference<T> type) {
+        try {
+            return json == null ? objectMapper.readValue("{}", type) : objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt email outbox data", e);
+        }
+    }
+}
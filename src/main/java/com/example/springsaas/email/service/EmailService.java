@@ -1,160 +1,86 @@
 package com.example.springsaas.email.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import java.util.Map;
+
 import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Builds application emails and records them in the outbox. Delivery happens in
+ * {@link EmailOutboxRelay} once the caller's transaction has committed.
+ */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender emailSender;
-    private final TemplateEngine templateEngine;
-    private final ResourceLoader resourceLoader;
-    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+    private static final String LOGO = "classpath:static/images/logo.png";
+    private static final String WELCOME_IMAGE = "classpath:static/images/welcome.png";
 
-    @Value("${spring.mail.username}")
-    private String fromEmail;
+    private final EmailOutboxService outboxService;
 
     @Value("${app.name}")
     private String appName;
 
-    @Async
-    public void sendEmail(String to, String subject, String templateName, Context context, Map<String, Resource> inlineResources) {
-        try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            String htmlContent = templateEngine.process(templateName, context);
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-            
-            // Add inline resources (images)
-            if (inlineResources != null) {
-                for (Map.Entry<String, Resource> entry : inlineResources.entrySet()) {
-                    helper.addInline(entry.getKey(), entry.getValue());
-                }
-            }
-            
-            emailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email", e);
-        }
+    public void sendEmail(String to, String subject, String templateName, Map<String, Object> variables,
+                          Map<String, String> inlineResources) {
+        outboxService.enqueue(to, subject, templateName, variables, inlineResources, null, null);
     }
 
-    @Async
-    public void sendEmailWithAttachment(String to, String subject, String templateName, 
-            Context context, String attachmentFilename, byte[] attachmentData) {
-        try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            
-            String htmlContent = templateEngine.process(templateName, context);
-            
-            helper.setFrom(fromEmail);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-            
-            // Add the attachment
-            helper.addAttachment(attachmentFilename, new ByteArrayResource(attachmentData));
-            
-            emailSender.send(message);
-        } catch (MessagingException e) {
-            throw new RuntimeException("Failed to send email with attachment", e);
-        }
+    public void sendEmailWithAttachment(String to, String subject, String templateName,
+            Map<String, Object> variables, String attachmentFilename, byte[] attachmentData) {
+        outboxService.enqueue(to, subject, templateName, variables, null, attachmentFilename, attachmentData);
     }
 
     public void sendVerificationEmail(String to, String name, String verificationLink) {
-        Context context = new Context();
-        context.setVariable("name", name);
-        context.setVariable("verificationLink", verificationLink);
-        
-        Map<String, Resource> inlineResources = new HashMap<>();
-        try {
-            inlineResources.put("logo", resourceLoader.getResource("classpath:static/images/logo.png"));
-        } catch (Exception e) {
-            log.warn("Could not load logo image for email", e);
-        }
-        
         sendEmail(
             to,
             "Verify your email address",
             "email/verification",
-            context,
-            inlineResources
+            variables("name", name, "verificationLink", verificationLink),
+            Map.of("logo", LOGO)
         );
     }
 
     public void sendWelcomeEmail(String to, String name) {
-        Context context = new Context();
-        context.setVariable("name", name);
-        
-        Map<String, Resource> inlineResources = new HashMap<>();
-        try {
-            inlineResources.put("logo", resourceLoader.getResource("classpath:static/images/logo.png"));
-            inlineResources.put("welcome-image", resourceLoader.getResource("classpath:static/images/welcome.png"));
-        } catch (Exception e) {
-            log.warn("Could not load images for welcome email", e);
-        }
-        
         sendEmail(
             to,
             "Welcome to " + appName + "!",
             "email/welcome",
-            context,
-            inlineResources
+            variables("name", name),
+            Map.of("logo", LOGO, "welcome-image", WELCOME_IMAGE)
         );
     }
 
     public void sendPasswordResetEmail(String to, String resetLink) {
-        Context context = new Context();
-        context.setVariable("resetLink", resetLink);
-        Map<String, Resource> inlineResources = new HashMap<>();
-        try {
-            inlineResources.put("logo", resourceLoader.getResource("classpath:static/images/logo.png"));
-        } catch (Exception e) {
-            log.warn("Could not load logo image for password reset email", e);
-        }
-        sendEmail(to, "Password Reset Request", "email/password-reset", context, inlineResources);
+        sendEmail(to, "Password Reset Request", "email/password-reset",
+                variables("resetLink", resetLink), Map.of("logo", LOGO));
     }
 
     public void sendSubscriptionConfirmationEmail(String to, String name, String plan) {
-        Context context = new Context();
-        context.setVariable("name", name);
-        context.setVariable("plan", plan);
-        sendEmail(to, "Subscription Confirmation", "subscription-confirmation", context, null);
+        sendEmail(to, "Subscription Confirmation", "subscription-confirmation",
+                variables("name", name, "plan", plan), null);
     }
 
     public void sendInvoiceEmail(String to, String name, String invoiceNumber, byte[] pdfData) {
-        Context context = new Context();
-        context.setVariable("name", name);
-        context.setVariable("invoiceNumber", invoiceNumber);
-        
         sendEmailWithAttachment(
             to,
             "Your Invoice #" + invoiceNumber,
             "invoice-email",
-            context,
+            variables("name", name, "invoiceNumber", invoiceNumber),
             "invoice-" + invoiceNumber + ".pdf",
             pdfData
         );
     }
-} 
\ No newline at end of file
+
+    // Unlike Map.of, tolerates null values: User.firstName is optional and a null name must not
+    // abort the caller's transaction. Thymeleaf renders a null variable as empty text.
+    private static Map<String, Object> variables(String... keysAndValues) {
+        Map<String, Object> variables = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            variables.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return variables;
+    }
+}
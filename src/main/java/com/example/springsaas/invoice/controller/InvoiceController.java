@@ -2,14 +2,19 @@ package com.example.springsaas.invoice.controller;
 
 import com.example.springsaas.invoice.entity.Invoice;
 import com.example.springsaas.invoice.service.InvoiceService;
-import com.example.springsaas.invoice.service.PdfService;
+import com.example.springsaas.invoice.service.InvoiceDocumentService;
+import com.example.springsaas.invoice.service.StoredArtifact;
 import lombok.RequiredArgsConstructor;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/invoices")
@@ -17,21 +22,33 @@ import org.springframework.web.bind.annotation.*;
 public class InvoiceController {
 
     private final InvoiceService invoiceService;
-    private final PdfService pdfService;
+    private final InvoiceDocumentService invoiceDocumentService;
 
     @GetMapping("/{id}/download")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<ByteArrayResource> downloadInvoice(@PathVariable Long id) {
-        Invoice invoice = invoiceService.getInvoice(id);
-        byte[] pdfData = pdfService.generateInvoicePdf(invoice);
+    public ResponseEntity<StreamingResponseBody> downloadInvoice(@PathVariable Long id, WebRequest webRequest)
+            throws IOException {
+        Invoice invoice = invoiceService.getInvoiceForRendering(id);
+        String etag = "\"" + invoiceDocumentService.contentKey(invoice) + "\"";
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
-        ByteArrayResource resource = new ByteArrayResource(pdfData);
+        // Length and body come from the same open file, so a concurrent re-render cannot change either
+        StoredArtifact.Content content = invoiceDocumentService.openOrRender(invoice);
+        StreamingResponseBody body = outputStream -> {
+            try (content) {
+                content.writeTo(outputStream);
+            }
+        };
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=invoice-" + invoice.getInvoiceNumber() + ".pdf")
                 .contentType(MediaType.APPLICATION_PDF)
-                .contentLength(pdfData.length)
-                .body(resource);
+                .contentLength(content.size())
+                .eTag(etag)
+                .body(body);
     }
 
     @PostMapping("/{id}/send")
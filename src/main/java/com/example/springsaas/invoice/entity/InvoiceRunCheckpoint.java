@@ -0,0 +1,50 @@
+package com.example.springsaas.invoice.entity;
+
+import com.example.springsaas.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "invoice_run_checkpoints",
+        uniqueConstraints = {
+                @UniqueConstraint(columnNames = "run_key")
+        })
+public class InvoiceRunCheckpoint extends BaseEntity {
+
+    @Column(name = "run_key", nullable = false)
+    private String runKey;
+
+    @Column(nullable = false)
+    private LocalDateTime periodStart;
+
+    @Column(nullable = false)
+    private LocalDateTime periodEnd;
+
+    @Column(nullable = false)
+    private long lastPaymentId;
+
+    @Column(nullable = false)
+    private long invoicesCreated;
+
+    @Column(nullable = false)
+    private long invoicesSent;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private RunStatus status = RunStatus.RUNNING;
+
+    @Column
+    private LocalDateTime completedAt;
+
+    public enum RunStatus {
+        RUNNING,
+        COMPLETED
+    }
+}
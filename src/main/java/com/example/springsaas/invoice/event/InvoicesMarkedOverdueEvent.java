@@ -0,0 +1,10 @@
+package com.example.springsaas.invoice.event;
+
+import java.util.List;
+
+/**
+ * Published after each committed batch of the overdue sweep, carrying the ids of the invoices
+ * that moved from SENT to OVERDUE in that batch.
+ */
+public record InvoicesMarkedOverdueEvent(List<Long> invoiceIds) {
+}
@@ -4,7 +4,11 @@ import com.example.springsaas.authentication.entity.User;
 import com.example.springsaas.invoice.entity.Invoice;
 import com.example.springsaas.invoice.entity.Invoice.InvoiceStatus;
 import com.example.springsaas.payment.entity.Payment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -19,4 +23,21 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Optional<Invoice> findByInvoiceNumber(String invoiceNumber);
     List<Invoice> findAllByStatusAndDueDateBefore(InvoiceStatus status, LocalDateTime date);
     List<Invoice> findAllByEmailSentFalseAndStatus(InvoiceStatus status);
+
+    @EntityGraph(attributePaths = {"user", "payment", "payment.subscription"})
+    Optional<Invoice> findWithDetailsById(Long id);
+
+    /**
+     * Keyset page of unsent invoices whose payment falls in {@code [start, end)}, for the users of one shard.
+     */
+    @Query("select i from Invoice i join fetch i.user u join fetch i.payment p join fetch p.subscription " +
+            "where i.status = :status and i.emailSent = false and p.createdAt >= :start and p.createdAt < :end " +
+            "and i.id > :afterId and mod(u.id, :shardCount) = :shard order by i.id")
+    List<Invoice> findUnsentPageForPeriod(@Param("status") InvoiceStatus status,
+                                          @Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end,
+                                          @Param("afterId") Long afterId,
+                                          @Param("shard") int shard,
+                                          @Param("shardCount") int shardCount,
+                                          Pageable pageable);
 } 
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.example.springsaas.invoice.repository;
+
+import com.example.springsaas.invoice.entity.InvoiceRunCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface InvoiceRunCheckpointRepository extends JpaRepository<InvoiceRunCheckpoint, Long> {
+    Optional<InvoiceRunCheckpoint> findByRunKey(String runKey);
+}
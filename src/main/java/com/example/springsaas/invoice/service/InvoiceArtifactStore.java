@@ -0,0 +1,23 @@
+package com.example.springsaas.invoice.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * Stores rendered invoice documents keyed by invoice id and a hash of the rendered content.
+ */
+public interface InvoiceArtifactStore {
+
+    Optional<StoredArtifact> find(Long invoiceId, String contentKey);
+
+    /**
+     * Writes a new artifact and drops any older version stored for the same invoice.
+     */
+    StoredArtifact store(Long invoiceId, String contentKey, ArtifactWriter writer) throws IOException;
+
+    @FunctionalInterface
+    interface ArtifactWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
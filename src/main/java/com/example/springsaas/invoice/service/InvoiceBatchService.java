@@ -0,0 +1,256 @@
+package com.example.springsaas.invoice.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.invoice.entity.Invoice;
+import com.example.springsaas.invoice.entity.Invoice.InvoiceStatus;
+import com.example.springsaas.invoice.entity.InvoiceRunCheckpoint;
+import com.example.springsaas.invoice.entity.InvoiceRunCheckpoint.RunStatus;
+import com.example.springsaas.invoice.repository.InvoiceRepository;
+import com.example.springsaas.invoice.repository.InvoiceRunCheckpointRepository;
+import com.example.springsaas.payment.entity.Payment;
+import com.example.springsaas.payment.repository.PaymentRepository;
+import com.example.springsaas.scheduling.service.ClusterJobScheduler;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the monthly invoices in keyset-paginated chunks. Each chunk runs three stages:
+ * a batched insert (committed together with the checkpoint), a parallel PDF render, and an
+ * email stage that sends each invoice in its own transaction. A crashed run resumes from its
+ * checkpoint and first finishes any invoices it had inserted but not yet sent; a run with
+ * failed sends stays open so the next attempt retries just those.
+ *
+ * <p>The run is split into {@code invoice.batch.shards} shards by {@code mod(user_id, shards)},
+ * so several nodes can work on the same month; each shard has its own checkpoint.
+ */
+@Slf4j
+@Service
+public class InvoiceBatchService implements MetricsSource {
+
+    private final PaymentRepository paymentRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceRunCheckpointRepository checkpointRepository;
+    private final InvoiceService invoiceService;
+    private final InvoiceDocumentService invoiceDocumentService;
+    private final ClusterJobScheduler clusterJobScheduler;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool renderPool;
+    private final int chunkSize;
+    private final int shardCount;
+
+    private volatile Map<String, Object> lastRunStats = Map.of();
+
+    public InvoiceBatchService(
+            PaymentRepository paymentRepository,
+            InvoiceRepository invoiceRepository,
+            InvoiceRunCheckpointRepository checkpointRepository,
+            InvoiceService invoiceService,
+            InvoiceDocumentService invoiceDocumentService,
+            ClusterJobScheduler clusterJobScheduler,
+            PlatformTransactionManager transactionManager,
+            @Value("${invoice.batch.chunk-size:500}") int chunkSize,
+            @Value("${invoice.batch.shards:4}") int shardCount,
+            @Value("${invoice.batch.render-parallelism:0}") int renderParallelism) {
+        this.paymentRepository = paymentRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.invoiceService = invoiceService;
+        this.invoiceDocumentService = invoiceDocumentService;
+        this.clusterJobScheduler = clusterJobScheduler;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.shardCount = shardCount;
+        this.renderPool = new ForkJoinPool(renderParallelism > 0
+                ? renderParallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    @Scheduled(cron = "0 0 2 1 * ?") // Run at 2 AM on the first day of each month
+    public void generateMonthlyInvoices() {
+        YearMonth month = YearMonth.now().minusMonths(1);
+        clusterJobScheduler.runSharded("invoice-monthly-run", shardCount,
+                (shard, shards) -> runMonth(month, shard, shards));
+    }
+
+    /**
+     * Runs (or resumes) one shard of the invoice run for {@code month}.
+     *
+     * @return the number of invoices this call created
+     */
+    public long runMonth(YearMonth month, int shard, int shards) {
+        LocalDateTime start = month.atDay(1).atStartOfDay();
+        LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+        String runKey = "monthly-" + month + "-shard-" + shard + "-of-" + shards;
+
+        InvoiceRunCheckpoint checkpoint = transactionTemplate.execute(status ->
+                checkpointRepository.findByRunKey(runKey).orElseGet(() -> {
+                    InvoiceRunCheckpoint created = new InvoiceRunCheckpoint();
+                    created.setRunKey(runKey);
+                    created.setPeriodStart(start);
+                    created.setPeriodEnd(end);
+                    return checkpointRepository.save(created);
+                }));
+
+        if (checkpoint.getStatus() == RunStatus.COMPLETED) {
+            log.info("Invoice run {} already completed, skipping", runKey);
+            return 0;
+        }
+
+        StageStats stats = new StageStats();
+        log.info("Starting invoice run {} from payment id {}", runKey, checkpoint.getLastPaymentId());
+
+        // Invoices inserted before a crash but never sent
+        long afterInvoiceId = 0;
+        List<Invoice> unsent;
+        do {
+            unsent = invoiceRepository.findUnsentPageForPeriod(
+                    InvoiceStatus.DRAFT, start, end, afterInvoiceId, shard, shards, PageRequest.of(0, chunkSize));
+            if (!unsent.isEmpty()) {
+                renderStage(unsent, stats);
+                emailStage(checkpoint.getId(), unsent, stats);
+                afterInvoiceId = unsent.get(unsent.size() - 1).getId();
+            }
+        } while (unsent.size() == chunkSize);
+
+        long afterPaymentId = checkpoint.getLastPaymentId();
+        long created = 0;
+        List<Payment> payments;
+        do {
+            long readStart = System.nanoTime();
+            payments = paymentRepository.findPageForInvoicing(
+                    Payment.PaymentStatus.SUCCEEDED, start, end, afterPaymentId, shard, shards,
+                    PageRequest.of(0, chunkSize));
+            stats.record("read", payments.size(), System.nanoTime() - readStart);
+
+            if (!payments.isEmpty()) {
+                afterPaymentId = payments.get(payments.size() - 1).getId();
+                List<Invoice> invoices = insertStage(checkpoint.getId(), payments, afterPaymentId, stats);
+                created += invoices.size();
+                renderStage(invoices, stats);
+                emailStage(checkpoint.getId(), invoices, stats);
+            }
+        } while (payments.size() == chunkSize);
+
+        lastRunStats = stats.snapshot(runKey);
+        if (stats.items("emailFailed") > 0) {
+            log.warn("Invoice run {} left {} invoices unsent; it stays open and retries them on the next attempt: {}",
+                    runKey, stats.items("emailFailed"), lastRunStats);
+            return created;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.findById(checkpoint.getId())
+                .ifPresent(done -> {
+                    done.setStatus(RunStatus.COMPLETED);
+                    done.setCompletedAt(LocalDateTime.now());
+                }));
+
+        log.info("Finished invoice run {}: {}", runKey, lastRunStats);
+        return created;
+    }
+
+    private List<Invoice> insertStage(Long checkpointId, List<Payment> payments, long lastPaymentId, StageStats stats) {
+        long stageStart = System.nanoTime();
+        List<Invoice> invoices = transactionTemplate.execute(status -> {
+            List<Invoice> saved = invoiceRepository.saveAll(payments.stream().map(invoiceService::newInvoice).toList());
+            checkpointRepository.findById(checkpointId).ifPresent(checkpoint -> {
+                checkpoint.setLastPaymentId(lastPaymentId);
+                checkpoint.setInvoicesCreated(checkpoint.getInvoicesCreated() + saved.size());
+            });
+            return saved;
+        });
+        stats.record("insert", invoices.size(), System.nanoTime() - stageStart);
+        return invoices;
+    }
+
+    private void renderStage(List<Invoice> invoices, StageStats stats) {
+        long stageStart = System.nanoTime();
+        try {
+            // Render the document as it will be sent, so the email stage reuses it
+            renderPool.submit(() -> invoices.parallelStream().forEach(invoice ->
+                    invoiceDocumentService.getOrRender(invoice, InvoiceStatus.SENT))).get();
+        } catch (Exception e) {
+            throw new RuntimeException("Invoice render stage failed", e);
+        }
+        stats.record("render", invoices.size(), System.nanoTime() - stageStart);
+    }
+
+    private void emailStage(Long checkpointId, List<Invoice> invoices, StageStats stats) {
+        long stageStart = System.nanoTime();
+        int sent = 0;
+        for (Invoice invoice : invoices) {
+            try {
+                // One transaction per invoice, so a bad invoice cannot roll back the rest of the chunk
+                transactionTemplate.executeWithoutResult(status -> invoiceService.sendInvoice(invoice));
+                sent++;
+            } catch (RuntimeException e) {
+                log.error("Failed to send invoice {} ({}); it stays unsent for the next run",
+                        invoice.getId(), invoice.getInvoiceNumber(), e);
+            }
+        }
+        int sentInChunk = sent;
+        if (sentInChunk > 0) {
+            transactionTemplate.executeWithoutResult(status -> checkpointRepository.findById(checkpointId)
+                    .ifPresent(checkpoint -> checkpoint.setInvoicesSent(checkpoint.getInvoicesSent() + sentInChunk)));
+        }
+        stats.record("email", sent, System.nanoTime() - stageStart);
+        stats.record("emailFailed", invoices.size() - sent, 0);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        renderPool.shutdown();
+        renderPool.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String metricsName() {
+        return "invoice.batch";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return lastRunStats;
+    }
+
+    private static final class StageStats {
+
+        private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+        void record(String stage, int items, long nanos) {
+            long[] totals = stages.computeIfAbsent(stage, key -> new long[2]);
+            totals[0] += items;
+            totals[1] += nanos;
+        }
+
+        long items(String stage) {
+            long[] totals = stages.get(stage);
+            return totals == null ? 0 : totals[0];
+        }
+
+        Map<String, Object> snapshot(String runKey) {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("run", runKey);
+            stages.forEach((stage, totals) -> {
+                double seconds = totals[1] / 1_000_000_000.0;
+                snapshot.put(stage + ".items", totals[0]);
+                snapshot.put(stage + ".seconds", seconds);
+                snapshot.put(stage + ".itemsPerSecond", seconds == 0 ? 0.0 : totals[0] / seconds);
+            });
+            return Map.copyOf(snapshot);
+        }
+    }
+}
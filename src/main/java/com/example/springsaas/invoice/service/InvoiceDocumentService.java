@@ -0,0 +1,84 @@
+package com.example.springsaas.invoice.service;
+
+import com.example.springsaas.common.crypto.Sha256;
+import com.example.springsaas.invoice.entity.Invoice;
+import com.example.springsaas.invoice.entity.Invoice.InvoiceStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.HexFormat;
+
+/**
+ * Renders each invoice PDF once per distinct content and serves it from the artifact store afterwards.
+ */
+@Service
+@RequiredArgsConstructor
+public class InvoiceDocumentService {
+
+    private final InvoiceArtifactStore artifactStore;
+    private final PdfService pdfService;
+
+    public StoredArtifact getOrRender(Invoice invoice) {
+        String contentKey = contentKey(invoice);
+        return artifactStore.find(invoice.getId(), contentKey)
+                .orElseGet(() -> render(invoice, contentKey));
+    }
+
+    /**
+     * Renders the document {@code invoice} will have once it is in {@code status}, without
+     * changing the invoice itself.
+     */
+    public StoredArtifact getOrRender(Invoice invoice, InvoiceStatus status) {
+        if (invoice.getStatus() == status) {
+            return getOrRender(invoice);
+        }
+        Invoice preview = new Invoice();
+        preview.setId(invoice.getId());
+        preview.setCreatedAt(invoice.getCreatedAt());
+        preview.setUser(invoice.getUser());
+        preview.setPayment(invoice.getPayment());
+        preview.setInvoiceNumber(invoice.getInvoiceNumber());
+        preview.setAmount(invoice.getAmount());
+        preview.setCurrency(invoice.getCurrency());
+        preview.setDueDate(invoice.getDueDate());
+        preview.setStatus(status);
+        return getOrRender(preview);
+    }
+
+    /**
+     * Opens the current document for {@code invoice}, rendering it first if needed. Retries once
+     * if a concurrent render of newer content removed the version found before it was opened.
+     */
+    public StoredArtifact.Content openOrRender(Invoice invoice) throws IOException {
+        try {
+            return getOrRender(invoice).open();
+        } catch (NoSuchFileException e) {
+            return getOrRender(invoice).open();
+        }
+    }
+
+    /**
+     * Hash of the fields whose change requires a new document.
+     */
+    public String contentKey(Invoice invoice) {
+        String fingerprint = String.join("|",
+                String.valueOf(invoice.getId()),
+                invoice.getInvoiceNumber(),
+                String.valueOf(invoice.getStatus()),
+                invoice.getAmount().toPlainString(),
+                invoice.getCurrency());
+        byte[] hash = Sha256.digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(hash, 0, 16);
+    }
+
+    private StoredArtifact render(Invoice invoice, String contentKey) {
+        try {
+            return artifactStore.store(invoice.getId(), contentKey, out -> pdfService.writeInvoicePdf(invoice, out));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store invoice PDF", e);
+        }
+    }
+}
@@ -5,14 +5,12 @@ import com.example.springsaas.invoice.entity.Invoice;
 import com.example.springsaas.invoice.entity.Invoice.InvoiceStatus;
 import com.example.springsaas.invoice.repository.InvoiceRepository;
 import com.example.springsaas.payment.entity.Payment;
-import com.example.springsaas.payment.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -20,8 +18,7 @@ import java.util.UUID;
 public class InvoiceService {
 
     private final InvoiceRepository invoiceRepository;
-    private final PaymentRepository paymentRepository;
-    private final PdfService pdfService;
+    private final InvoiceDocumentService invoiceDocumentService;
     private final EmailService emailService;
 
     @Transactional(readOnly = true)
@@ -30,8 +27,24 @@ public class InvoiceService {
                 .orElseThrow(() -> new RuntimeException("Invoice not found"));
     }
 
+    /**
+     * Loads the invoice with everything the PDF needs, so it can be rendered outside a session.
+     */
+    @Transactional(readOnly = true)
+    public Invoice getInvoiceForRendering(Long id) {
+        return invoiceRepository.findWithDetailsById(id)
+                .orElseThrow(() -> new RuntimeException("Invoice not found"));
+    }
+
     @Transactional
     public Invoice createInvoice(Payment payment) {
+        return invoiceRepository.save(newInvoice(payment));
+    }
+
+    /**
+     * Builds an unsaved DRAFT invoice for {@code payment}.
+     */
+    public Invoice newInvoice(Payment payment) {
         Invoice invoice = new Invoice();
         invoice.setUser(payment.getUser());
         invoice.setPayment(payment);
@@ -40,8 +53,7 @@ public class InvoiceService {
         invoice.setCurrency(payment.getCurrency());
         invoice.setStatus(InvoiceStatus.DRAFT);
         invoice.setDueDate(LocalDateTime.now().plusDays(30));
-
-        return invoiceRepository.save(invoice);
+        return invoice;
     }
 
     @Transactional
@@ -53,63 +65,26 @@ public class InvoiceService {
 
     @Transactional
     public void sendInvoice(Invoice invoice) {
-        byte[] pdfData = pdfService.generateInvoicePdf(invoice);
-        
-        emailService.sendInvoiceEmail(
-            invoice.getUser().getEmail(),
-            invoice.getUser().getFirstName(),
-            invoice.getInvoiceNumber(),
-            pdfData
-        );
-
+        // Render with the status the customer will see, so downloads reuse the same artifact
         invoice.setStatus(InvoiceStatus.SENT);
-        invoice.setEmailSent(true);
-        invoice.setEmailSentAt(LocalDateTime.now());
-        invoice.setPdfUrl("invoices/" + invoice.getInvoiceNumber() + ".pdf"); // You would store this in a file storage service
-        
-        invoiceRepository.save(invoice);
-    }
+        StoredArtifact artifact = invoiceDocumentService.getOrRender(invoice);
 
-    @Scheduled(cron = "0 0 1 * * ?") // Run at 1 AM every day
-    @Transactional
-    public void checkOverdueInvoices() {
-        List<Invoice> overdueInvoices = invoiceRepository
-                .findAllByStatusAndDueDateBefore(InvoiceStatus.SENT, LocalDateTime.now());
-        
-        for (Invoice invoice : overdueInvoices) {
-            invoice.setStatus(InvoiceStatus.OVERDUE);
-            invoiceRepository.save(invoice);
-            // You could send overdue notification emails here
+        try {
+            emailService.sendInvoiceEmail(
+                invoice.getUser().getEmail(),
+                invoice.getUser().getFirstName(),
+                invoice.getInvoiceNumber(),
+                artifact.readAllBytes()
+            );
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read invoice PDF", e);
         }
-    }
 
-    @Scheduled(cron = "0 0 2 1 * ?") // Run at 2 AM on the first day of each month
-    @Transactional
-    public void generateMonthlyInvoices() {
-        LocalDateTime startOfLastMonth = LocalDateTime.now()
-                .minusMonths(1)
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0);
+        invoice.setEmailSent(true);
+        invoice.setEmailSentAt(LocalDateTime.now());
+        invoice.setPdfUrl(artifact.location());
         
-        LocalDateTime endOfLastMonth = LocalDateTime.now()
-                .withDayOfMonth(1)
-                .withHour(0)
-                .withMinute(0)
-                .withSecond(0)
-                .minusSeconds(1);
-
-        List<Payment> payments = paymentRepository.findAllByStatusAndCreatedAtBetween(
-                Payment.PaymentStatus.SUCCEEDED,
-                startOfLastMonth,
-                endOfLastMonth
-        );
-
-        for (Payment payment : payments) {
-            Invoice invoice = createInvoice(payment);
-            sendInvoice(invoice);
-        }
+        invoiceRepository.save(invoice);
     }
 
     private String generateInvoiceNumber() {
@@ -0,0 +1,134 @@
+package com.example.springsaas.invoice.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Keeps artifacts on the local filesystem as {@code <directory>/<invoiceId>/<contentKey>.pdf}.
+ * Files are written to a temporary name and atomically moved into place, so readers
+ * never see a partial document.
+ *
+ * <p>Downloads are copied with {@link FileChannel#transferTo}, not served through Tomcat's
+ * sendfile. Sendfile reopens the file by name after the controller returns. By then a re-render
+ * may have replaced or unlinked it, and the body would no longer match the Content-Length and ETag
+ * already sent. The servlet output stream is not a socket channel, so the JDK still copies through
+ * a heap buffer. An artifact store that needs zero-copy downloads should hand out URLs instead,
+ * e.g. presigned object-store links.
+ */
+@Slf4j
+@Component
+public class LocalFileInvoiceArtifactStore implements InvoiceArtifactStore {
+
+    private static final String EXTENSION = ".pdf";
+
+    private final Path rootDirectory;
+
+    public LocalFileInvoiceArtifactStore(@Value("${invoice.storage.local.directory:data/invoices}") String directory) {
+        this.rootDirectory = Paths.get(directory).toAbsolutePath();
+    }
+
+    @Override
+    public Optional<StoredArtifact> find(Long invoiceId, String contentKey) {
+        Path path = pathFor(invoiceId, contentKey);
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+        return Optional.of(new LocalArtifact(invoiceId, contentKey, path));
+    }
+
+    @Override
+    public StoredArtifact store(Long invoiceId, String contentKey, ArtifactWriter writer) throws IOException {
+        Path directory = rootDirectory.resolve(String.valueOf(invoiceId));
+        Files.createDirectories(directory);
+
+        Path target = pathFor(invoiceId, contentKey);
+        Path temp = Files.createTempFile(directory, contentKey, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        deleteOtherVersions(directory, target);
+        return new LocalArtifact(invoiceId, contentKey, target);
+    }
+
+    private void deleteOtherVersions(Path directory, Path current) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                if (!file.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not remove stale invoice artifacts in {}", directory, e);
+        }
+    }
+
+    private Path pathFor(Long invoiceId, String contentKey) {
+        return rootDirectory.resolve(String.valueOf(invoiceId)).resolve(contentKey + EXTENSION);
+    }
+
+    private record LocalArtifact(Long invoiceId, String contentKey, Path path) implements StoredArtifact {
+
+        @Override
+        public String location() {
+            return path.toString();
+        }
+
+        @Override
+        public byte[] readAllBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public Content open() throws IOException {
+            return new FileContent(FileChannel.open(path, StandardOpenOption.READ));
+        }
+    }
+
+    // The open channel keeps the file readable after deleteOtherVersions unlinks it
+    private record FileContent(FileChannel channel, long size) implements StoredArtifact.Content {
+
+        FileContent(FileChannel channel) throws IOException {
+            this(channel, channel.size());
+        }
+
+        // Copies exactly the size already sent as Content-Length
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                long transferred = channel.transferTo(position, size - position, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Invoice artifact ended after " + position + " of " + size + " bytes");
+                }
+                position += transferred;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
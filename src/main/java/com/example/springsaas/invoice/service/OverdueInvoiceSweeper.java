@@ -0,0 +1,102 @@
+package com.example.springsaas.invoice.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.invoice.event.InvoicesMarkedOverdueEvent;
+import com.example.springsaas.scheduling.service.ClusterJobScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves SENT invoices past their due date to OVERDUE with bounded set-based UPDATEs, one
+ * statement per batch instead of one per row. Only one node sweeps at a time.
+ */
+@Slf4j
+@Service
+public class OverdueInvoiceSweeper implements MetricsSource {
+
+    static final String JOB_NAME = "invoice-overdue-sweep";
+
+    private static final String MARK_OVERDUE_SQL = """
+            UPDATE invoices
+               SET status = 'OVERDUE', updated_at = ?, version = COALESCE(version, 0) + 1
+             WHERE id IN (SELECT id FROM invoices
+                           WHERE status = 'SENT' AND due_date < ?
+                           ORDER BY id
+                           LIMIT ?
+                           FOR UPDATE SKIP LOCKED)
+            RETURNING id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterJobScheduler clusterJobScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    private final LongAdder transitioned = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile LocalDateTime lastSweepAt;
+
+    public OverdueInvoiceSweeper(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ClusterJobScheduler clusterJobScheduler,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${invoice.overdue.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clusterJobScheduler = clusterJobScheduler;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${invoice.overdue.cron:0 0 1 * * ?}") // Run at 1 AM every day
+    public void checkOverdueInvoices() {
+        clusterJobScheduler.runExclusive(JOB_NAME, this::sweep);
+    }
+
+    private long sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        long total = 0;
+        List<Long> ids;
+        do {
+            ids = transactionTemplate.execute(status -> jdbcTemplate.queryForList(
+                    MARK_OVERDUE_SQL, Long.class, Timestamp.valueOf(LocalDateTime.now()), Timestamp.valueOf(now), batchSize));
+            if (!ids.isEmpty()) {
+                batches.increment();
+                transitioned.add(ids.size());
+                total += ids.size();
+                eventPublisher.publishEvent(new InvoicesMarkedOverdueEvent(List.copyOf(ids)));
+            }
+        } while (ids.size() == batchSize);
+
+        lastSweepAt = now;
+        log.info("Marked {} invoices as overdue", total);
+        return total;
+    }
+
+    @Override
+    public String metricsName() {
+        return "invoice.overdue";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "transitioned", transitioned.sum(),
+                "batches", batches.sum(),
+                "lastSweepAt", lastSweepAt == null ? "never" : lastSweepAt.toString());
+    }
+}
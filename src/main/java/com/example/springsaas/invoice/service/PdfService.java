@@ -12,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 
 @Service
@@ -21,8 +22,19 @@ public class PdfService {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMMM dd, yyyy");
 
     public byte[] generateInvoicePdf(Invoice invoice) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(baos);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeInvoicePdf(invoice, baos);
+        return baos.toByteArray();
+    }
+
+    /**
+     * Renders the invoice straight into {@code out} without buffering the document.
+     * The stream is flushed but left open for the caller.
+     */
+    public void writeInvoicePdf(Invoice invoice, OutputStream out) {
+        try {
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
             PdfDocument pdf = new PdfDocument(writer);
             Document document = new Document(pdf);
 
@@ -82,7 +94,7 @@ public class PdfService {
                     .setItalic());
 
             document.close();
-            return baos.toByteArray();
+            out.flush();
         } catch (Exception e) {
             throw new RuntimeException("Failed to generate PDF", e);
         }
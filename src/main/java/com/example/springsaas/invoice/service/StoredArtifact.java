@@ -0,0 +1,34 @@
+package com.example.springsaas.invoice.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A rendered invoice document held by an {@link InvoiceArtifactStore}.
+ */
+public interface StoredArtifact {
+
+    Long invoiceId();
+
+    String contentKey();
+
+    String location();
+
+    byte[] readAllBytes() throws IOException;
+
+    /**
+     * Opens the artifact for streaming. The opened content stays readable, with the size it had
+     * when opened, even if a newer version replaces this one before it is fully read.
+     *
+     * @throws java.nio.file.NoSuchFileException if the artifact was replaced since it was found
+     */
+    Content open() throws IOException;
+
+    interface Content extends Closeable {
+
+        long size();
+
+        void writeTo(OutputStream out) throws IOException;
+    }
+}
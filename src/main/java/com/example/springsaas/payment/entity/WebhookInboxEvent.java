@@ -0,0 +1,63 @@
+package com.example.springsaas.payment.entity;
+
+import com.example.springsaas.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "webhook_inbox_events",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_webhook_inbox_stripe_event_id", columnNames = "stripe_event_id")
+        },
+        indexes = {
+                @Index(name = "idx_webhook_inbox_status_id", columnList = "status, id")
+        })
+public class WebhookInboxEvent extends BaseEntity {
+
+    @Column(name = "stripe_event_id", nullable = false)
+    private String stripeEventId;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column
+    private String stripeCustomerId;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private InboxStatus status = InboxStatus.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Earliest time the event may be claimed again after a failed attempt
+    @Column(name = "next_attempt_at", nullable = false,
+            columnDefinition = "timestamp(6) not null default current_timestamp")
+    private LocalDateTime nextAttemptAt;
+
+    @Column
+    private LocalDateTime claimedAt;
+
+    @Column
+    private LocalDateTime processedAt;
+
+    @Column(columnDefinition = "text")
+    private String lastError;
+
+    public enum InboxStatus {
+        PENDING,
+        PROCESSING,
+        PROCESSED,
+        FAILED
+    }
+}
@@ -4,7 +4,10 @@ import com.example.springsaas.authentication.entity.User;
 import com.example.springsaas.payment.entity.Payment;
 import com.example.springsaas.payment.entity.Payment.PaymentStatus;
 import com.example.springsaas.subscriptionmanagement.entity.Subscription;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -18,4 +21,19 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findAllBySubscription(Subscription subscription);
     Optional<Payment> findByStripePaymentIntentId(String stripePaymentIntentId);
     List<Payment> findAllByStatusAndCreatedAtBetween(PaymentStatus status, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Keyset page of payments in {@code [start, end)} after {@code afterId}, with user and subscription loaded,
+     * restricted to the users of one shard ({@code mod(user.id, shardCount) = shard}).
+     */
+    @Query("select p from Payment p join fetch p.user u join fetch p.subscription " +
+            "where p.status = :status and p.createdAt >= :start and p.createdAt < :end and p.id > :afterId " +
+            "and mod(u.id, :shardCount) = :shard order by p.id")
+    List<Payment> findPageForInvoicing(@Param("status") PaymentStatus status,
+                                       @Param("start") LocalDateTime start,
+                                       @Param("end") LocalDateTime end,
+                                       @Param("afterId") Long afterId,
+                                       @Param("shard") int shard,
+                                       @Param("shardCount") int shardCount,
+                                       Pageable pageable);
 } 
\ No newline at end of file
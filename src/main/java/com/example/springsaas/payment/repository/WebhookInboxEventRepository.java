@@ -0,0 +1,65 @@
+package com.example.springsaas.payment.repository;
+
+import com.example.springsaas.payment.entity.WebhookInboxEvent;
+import com.example.springsaas.payment.entity.WebhookInboxEvent.InboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WebhookInboxEventRepository extends JpaRepository<WebhookInboxEvent, Long> {
+
+    boolean existsByStripeEventId(String stripeEventId);
+
+    /**
+     * Takes the transaction-scoped lock that serializes {@link #claimPending} across nodes.
+     *
+     * @return {@code false} if another node is claiming right now
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext(:lockName))", nativeQuery = true)
+    boolean tryClaimLock(@Param("lockName") String lockName);
+
+    /**
+     * Claims due events that are at the head of their customer's queue: no earlier event of
+     * the same customer is still pending and none is in flight. At most one event per customer
+     * is claimed, so a customer's events run one at a time and in id order, and a failed event
+     * holds back the later ones until it succeeds or is given up. Callers must hold the
+     * {@link #tryClaimLock claim lock}, otherwise two nodes can claim for the same customer.
+     */
+    @Query(value = """
+            UPDATE webhook_inbox_events e
+               SET status = 'PROCESSING', claimed_at = :now, updated_at = :now,
+                   attempts = e.attempts + 1, version = e.version + 1
+             WHERE e.id IN (
+                   SELECT c.id FROM webhook_inbox_events c
+                    WHERE c.status = 'PENDING'
+                      AND c.next_attempt_at <= :now
+                      AND NOT EXISTS (SELECT 1 FROM webhook_inbox_events p
+                                       WHERE p.stripe_customer_id = c.stripe_customer_id
+                                         AND p.id <> c.id
+                                         AND (p.status = 'PROCESSING'
+                                              OR (p.status = 'PENDING' AND p.id < c.id)))
+                    ORDER BY c.id
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED)
+            RETURNING *
+            """, nativeQuery = true)
+    List<WebhookInboxEvent> claimPending(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("update WebhookInboxEvent e set e.status = :pending, e.claimedAt = null " +
+            "where e.status = :processing and e.claimedAt < :claimedBefore")
+    int releaseStaleClaims(@Param("claimedBefore") LocalDateTime claimedBefore,
+                           @Param("processing") InboxStatus processing,
+                           @Param("pending") InboxStatus pending);
+
+    @Modifying
+    @Query("delete from WebhookInboxEvent e where e.status = :status and e.processedAt < :processedBefore")
+    int deleteByStatusAndProcessedAtBefore(@Param("status") InboxStatus status,
+                                           @Param("processedBefore") LocalDateTime processedBefore);
+}
@@ -0,0 +1,206 @@
+package com.example.springsaas.payment.service;
+
+import com.example.springsaas.config.StripeCatalogProperties;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import com.stripe.model.Price;
+import com.stripe.model.Product;
+import com.stripe.model.Subscription;
+import com.stripe.model.SubscriptionItem;
+import com.stripe.model.SubscriptionItemCollection;
+import com.stripe.param.SubscriptionUpdateParams;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In-memory Stripe for local development and tests, enabled with the {@code stripe-stub}
+ * profile. Checkout sessions are complete as soon as they are created, and idempotency keys
+ * behave like Stripe's: repeating a key returns the first result.
+ */
+@Component
+@Profile("stripe-stub")
+public class FakeStripeGateway implements StripeGateway {
+
+    private static final Map<SubscriptionPlan, Long> AMOUNTS_IN_CENTS = Map.of(
+            SubscriptionPlan.FREE, 0L,
+            SubscriptionPlan.BASIC, 999L,
+            SubscriptionPlan.PREMIUM, 1999L,
+            SubscriptionPlan.ENTERPRISE, 4999L
+    );
+
+    private final StripeCatalogProperties catalogProperties;
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, Object> idempotentResults = new ConcurrentHashMap<>();
+    private final Map<String, com.stripe.model.checkout.Session> checkoutSessions = new ConcurrentHashMap<>();
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<StripeOperation, StripeException> pendingFailures = new ConcurrentHashMap<>();
+
+    public FakeStripeGateway(StripeCatalogProperties catalogProperties) {
+        this.catalogProperties = catalogProperties;
+    }
+
+    /**
+     * Makes the next call of {@code operation} throw {@code failure}.
+     */
+    public void failNext(StripeOperation operation, StripeException failure) {
+        pendingFailures.put(operation, failure);
+    }
+
+    @Override
+    public Customer createCustomer(String email, String name, String idempotencyKey) throws StripeException {
+        failIfRequested(StripeOperation.CREATE_CUSTOMER);
+        return idempotent(idempotencyKey, () -> {
+            Customer customer = new Customer();
+            customer.setId(nextId("cus"));
+            customer.setEmail(email);
+            customer.setName(name);
+            return customer;
+        });
+    }
+
+    @Override
+    public Price retrievePrice(String priceId) throws StripeException {
+        failIfRequested(StripeOperation.RETRIEVE_PRICE);
+        SubscriptionPlan plan = catalogProperties.getPrices().entrySet().stream()
+                .filter(entry -> entry.getValue().equals(priceId))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElseThrow(() -> notFound("price", priceId));
+
+        String planName = plan.name().charAt(0) + plan.name().substring(1).toLowerCase();
+        Product product = new Product();
+        product.setId("prod_fake_" + plan.name().toLowerCase());
+        product.setName(planName + " Plan");
+
+        Price price = new Price();
+        price.setId(priceId);
+        price.setProduct(product.getId());
+        price.setProductObject(product);
+        price.setUnitAmount(AMOUNTS_IN_CENTS.get(plan));
+        price.setCurrency("usd");
+        price.setActive(true);
+        return price;
+    }
+
+    @Override
+    public com.stripe.model.checkout.Session createCheckoutSession(
+            String customerId, String priceId, String successUrl, String cancelUrl, String idempotencyKey)
+            throws StripeException {
+        failIfRequested(StripeOperation.CREATE_CHECKOUT_SESSION);
+        Price price = retrievePrice(priceId);
+        return idempotent(idempotencyKey, () -> {
+            Subscription subscription = newSubscription(customerId, price);
+            subscriptions.put(subscription.getId(), subscription);
+
+            com.stripe.model.checkout.Session session = new com.stripe.model.checkout.Session();
+            session.setId(nextId("cs"));
+            session.setCustomer(customerId);
+            session.setSubscription(subscription.getId());
+            session.setMode("subscription");
+            session.setStatus("complete");
+            session.setUrl(successUrl.replace("{CHECKOUT_SESSION_ID}", session.getId()));
+            checkoutSessions.put(session.getId(), session);
+            return session;
+        });
+    }
+
+    @Override
+    public com.stripe.model.checkout.Session retrieveCheckoutSession(String sessionId) throws StripeException {
+        failIfRequested(StripeOperation.RETRIEVE_CHECKOUT_SESSION);
+        com.stripe.model.checkout.Session session = checkoutSessions.get(sessionId);
+        if (session == null) {
+            throw notFound("checkout session", sessionId);
+        }
+        return session;
+    }
+
+    @Override
+    public Subscription retrieveSubscription(String subscriptionId) throws StripeException {
+        failIfRequested(StripeOperation.RETRIEVE_SUBSCRIPTION);
+        Subscription subscription = subscriptions.get(subscriptionId);
+        if (subscription == null) {
+            throw notFound("subscription", subscriptionId);
+        }
+        return subscription;
+    }
+
+    @Override
+    public Subscription updateSubscription(String subscriptionId, SubscriptionUpdateParams params, String idempotencyKey)
+            throws StripeException {
+        failIfRequested(StripeOperation.UPDATE_SUBSCRIPTION);
+        Subscription subscription = retrieveSubscription(subscriptionId);
+        if (params.getItems() != null) {
+            for (SubscriptionUpdateParams.Item change : params.getItems()) {
+                for (SubscriptionItem item : subscription.getItems().getData()) {
+                    if (item.getId().equals(change.getId()) && change.getPrice() instanceof String priceId) {
+                        item.setPrice(retrievePrice(priceId));
+                    }
+                }
+            }
+        }
+        return subscription;
+    }
+
+    @Override
+    public com.stripe.model.billingportal.Session createPortalSession(String customerId, String returnUrl)
+            throws StripeException {
+        failIfRequested(StripeOperation.CREATE_PORTAL_SESSION);
+        com.stripe.model.billingportal.Session session = new com.stripe.model.billingportal.Session();
+        session.setId(nextId("bps"));
+        session.setCustomer(customerId);
+        session.setReturnUrl(returnUrl);
+        session.setUrl(returnUrl);
+        return session;
+    }
+
+    private Subscription newSubscription(String customerId, Price price) {
+        ZonedDateTime now = ZonedDateTime.now();
+        SubscriptionItem item = new SubscriptionItem();
+        item.setId(nextId("si"));
+        item.setPrice(price);
+        SubscriptionItemCollection items = new SubscriptionItemCollection();
+        items.setData(new ArrayList<>(List.of(item)));
+
+        Subscription subscription = new Subscription();
+        subscription.setId(nextId("sub"));
+        subscription.setCustomer(customerId);
+        subscription.setStatus("active");
+        subscription.setCurrentPeriodStart(now.toEpochSecond());
+        subscription.setCurrentPeriodEnd(now.plusMonths(1).toEpochSecond());
+        subscription.setItems(items);
+        return subscription;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T idempotent(String idempotencyKey, Supplier<T> create) {
+        if (idempotencyKey == null) {
+            return create.get();
+        }
+        return (T) idempotentResults.computeIfAbsent(idempotencyKey, key -> create.get());
+    }
+
+    private void failIfRequested(StripeOperation operation) throws StripeException {
+        StripeException failure = pendingFailures.remove(operation);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private String nextId(String prefix) {
+        return prefix + "_fake_" + ids.incrementAndGet();
+    }
+
+    private static InvalidRequestException notFound(String type, String id) {
+        return new InvalidRequestException("No such " + type + ": '" + id + "'", null, null, null, 404, null);
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.springsaas.payment.service;
+
+import com.example.springsaas.common.metrics.LatencyHistogram;
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.common.resilience.CircuitBreaker;
+import com.example.springsaas.config.StripeGatewayProperties;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import com.stripe.model.Price;
+import com.stripe.model.Subscription;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.CustomerCreateParams;
+import com.stripe.param.PriceRetrieveParams;
+import com.stripe.param.SubscriptionUpdateParams;
+import com.stripe.param.checkout.SessionCreateParams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link StripeGateway} over a {@link StripeClient} with its own API key, so nothing depends on
+ * the SDK's global {@code Stripe.apiKey}. Each call goes through, in order: the operation's
+ * bulkhead, the circuit breaker, and up to {@code maxAttempts} attempts with the operation's read
+ * timeout and jittered exponential backoff. The SDK's own retries are disabled.
+ */
+@Slf4j
+@Component
+@Profile("!stripe-stub")
+public class ResilientStripeGateway implements StripeGateway, MetricsSource {
+
+    @FunctionalInterface
+    private interface StripeCall<T> {
+        T execute(RequestOptions options) throws StripeException;
+    }
+
+    private final StripeClient client;
+    private final StripeGatewayProperties properties;
+    private final CircuitBreaker circuitBreaker;
+    private final Map<StripeOperation, OperationState> operations = new EnumMap<>(StripeOperation.class);
+
+    @Autowired
+    public ResilientStripeGateway(StripeGatewayProperties properties, @Value("${stripe.api.key}") String apiKey) {
+        this(properties, new StripeClient(apiKey));
+    }
+
+    ResilientStripeGateway(StripeGatewayProperties properties, StripeClient client) {
+        this.client = client;
+        this.properties = properties;
+        StripeGatewayProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+        this.circuitBreaker = new CircuitBreaker(
+                breaker.getWindowSize(),
+                breaker.getMinimumCalls(),
+                breaker.getFailureRateThreshold(),
+                breaker.getOpenDuration(),
+                breaker.getProbeTimeout());
+        for (StripeOperation operation : StripeOperation.values()) {
+            operations.put(operation, new OperationState(properties.settingsFor(operation)));
+        }
+    }
+
+    @Override
+    public Customer createCustomer(String email, String name, String idempotencyKey) throws StripeException {
+        CustomerCreateParams params = CustomerCreateParams.builder()
+                .setEmail(email)
+                .setName(name)
+                .build();
+        return call(StripeOperation.CREATE_CUSTOMER, idempotencyKey,
+                options -> client.customers().create(params, options));
+    }
+
+    @Override
+    public Price retrievePrice(String priceId) throws StripeException {
+        PriceRetrieveParams params = PriceRetrieveParams.builder()
+                .addExpand("product")
+                .build();
+        return call(StripeOperation.RETRIEVE_PRICE, null,
+                options -> client.prices().retrieve(priceId, params, options));
+    }
+
+    @Override
+    public com.stripe.model.checkout.Session createCheckoutSession(
+            String customerId, String priceId, String successUrl, String cancelUrl, String idempotencyKey)
+            throws StripeException {
+        SessionCreateParams params = SessionCreateParams.builder()
+                .setCustomer(customerId)
+                .addLineItem(SessionCreateParams.LineItem.builder()
+                        .setPrice(priceId)
+                        .setQuantity(1L)
+                        .build())
+                .setMode(SessionCreateParams.Mode.SUBSCRIPTION)
+                .setSuccessUrl(successUrl)
+                .setCancelUrl(cancelUrl)
+                .build();
+        return call(StripeOperation.CREATE_CHECKOUT_SESSION, idempotencyKey,
+                options -> client.checkout().sessions().create(params, options));
+    }
+
+    @Override
+    public com.stripe.model.checkout.Session retrieveCheckoutSession(String sessionId) throws StripeException {
+        return call(StripeOperation.RETRIEVE_CHECKOUT_SESSION, null,
+                options -> client.checkout().sessions().retrieve(sessionId, options));
+    }
+
+    @Override
+    public Subscription retrieveSubscription(String subscriptionId) throws StripeException {
+        return call(StripeOperation.RETRIEVE_SUBSCRIPTION, null,
+                options -> client.subscriptions().retrieve(subscriptionId, options));
+    }
+
+    @Override
+    public Subscription updateSubscription(String subscriptionId, SubscriptionUpdateParams params, String idempotencyKey)
+            throws StripeException {
+        return call(StripeOperation.UPDATE_SUBSCRIPTION, idempotencyKey,
+                options -> client.subscriptions().update(subscriptionId, params, options));
+    }
+
+    @Override
+    public com.stripe.model.billingportal.Session createPortalSession(String customerId, String returnUrl)
+            throws StripeException {
+        com.stripe.param.billingportal.SessionCreateParams params = com.stripe.param.billingportal.SessionCreateParams.builder()
+                .setCustomer(customerId)
+                .setReturnUrl(returnUrl)
+                .build();
+        return call(StripeOperation.CREATE_PORTAL_SESSION, null,
+                options -> client.billingPortal().sessions().create(params, options));
+    }
+
+    private <T> T call(StripeOperation operation, String idempotencyKey, StripeCall<T> call) throws StripeException {
+        OperationState state = operations.get(operation);
+        boolean permitted = false;
+        try {
+            permitted = state.bulkhead.tryAcquire(properties.getBulkheadWait().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!permitted) {
+            state.rejected.increment();
+            throw new ApiConnectionException("Stripe bulkhead full, rejected " + operation);
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                state.rejected.increment();
+                throw new ApiConnectionException("Stripe circuit breaker is open, rejected " + operation);
+            }
+            return attempt(operation, state, state.options(properties, idempotencyKey), call);
+        } finally {
+            state.bulkhead.release();
+        }
+    }
+
+    private <T> T attempt(StripeOperation operation, OperationState state, RequestOptions options, StripeCall<T> call)
+            throws StripeException {
+        int maxAttempts = Math.max(1, state.settings.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            // Every permitted attempt reports back, so a half-open probe never stays in flight;
+            // anything but an answer from Stripe, including a RuntimeException or Error, is a failure
+            boolean answered = false;
+            StripeException failure;
+            try {
+                T result = call.execute(options);
+                answered = true;
+                return result;
+            } catch (StripeException e) {
+                if (!isTransient(e)) {
+                    // Stripe answered; a rejected request is not an outage
+                    answered = true;
+                    throw e;
+                }
+                failure = e;
+            } finally {
+                state.latency.record(System.nanoTime() - start);
+                if (answered) {
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure();
+                }
+            }
+            state.failures.increment();
+            if (attempt >= maxAttempts || !circuitBreaker.tryAcquire()) {
+                throw failure;
+            }
+            state.retries.increment();
+            log.warn("Stripe {} failed (attempt {}/{}), retrying: {}", operation, attempt, maxAttempts, failure.getMessage());
+            backoff(attempt);
+        }
+    }
+
+    private void backoff(int attempt) throws ApiConnectionException {
+        long cap = Math.min(properties.getMaxRetryDelay().toMillis(),
+                properties.getBaseRetryDelay().toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiConnectionException("Interrupted while waiting to retry a Stripe call", e);
+        }
+    }
+
+    private static boolean isTransient(StripeException e) {
+        if (e instanceof ApiConnectionException || e instanceof RateLimitException) {
+            return true;
+        }
+        Integer status = e.getStatusCode();
+        // 409: a concurrent request with the same idempotency key is still in flight
+        return status != null && (status >= 500 || status == 409);
+    }
+
+    @Override
+    public String metricsName() {
+        return "stripe.gateway";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("circuitState", circuitBreaker.state().name());
+        metrics.put("circuitOpened", circuitBreaker.timesOpened());
+        metrics.put("circuitRejected", circuitBreaker.rejected());
+        operations.forEach((operation, state) -> {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("inFlight", state.settings.getMaxConcurrent() - state.bulkhead.availablePermits());
+            snapshot.put("rejected", state.rejected.sum());
+            snapshot.put("failures", state.failures.sum());
+            snapshot.put("retries", state.retries.sum());
+            snapshot.put("latency", state.latency.snapshot());
+            metrics.put(operation.name(), snapshot);
+        });
+        return metrics;
+    }
+
+    private static final class OperationState {
+
+        private final StripeGatewayProperties.Operation settings;
+        private final Semaphore bulkhead;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+
+        private OperationState(StripeGatewayProperties.Operation settings) {
+            this.settings = settings;
+            this.bulkhead = new Semaphore(settings.getMaxConcurrent());
+        }
+
+        private RequestOptions options(StripeGatewayProperties properties, String idempotencyKey) {
+            return RequestOptions.builder()
+                    .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                    .setReadTimeout((int) settings.getReadTimeout().toMillis())
+                    .setMaxNetworkRetries(0)
+                    .setIdempotencyKey(idempotencyKey)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.springsaas.payment.service;
+
+import com.example.springsaas.subscriptionmanagement.service.StripeCatalogService;
+import com.example.springsaas.subscriptionmanagement.service.SubscriptionService;
+import com.stripe.model.Event;
+import com.stripe.model.EventDataObjectDeserializer;
+import com.stripe.model.StripeObject;
+import com.stripe.model.checkout.Session;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StripeEventHandler {
+
+    private final SubscriptionService subscriptionService;
+    private final StripeCatalogService catalogService;
+
+    public void handle(Event event) {
+        log.info("Processing Stripe webhook event: {} [{}]", event.getType(), event.getId());
+
+        EventDataObjectDeserializer dataObjectDeserializer = event.getDataObjectDeserializer();
+        if (!dataObjectDeserializer.getObject().isPresent()) {
+            throw new IllegalStateException("Cannot deserialize webhook event data for event: "
+                    + event.getType() + " [" + event.getId() + "]");
+        }
+
+        StripeObject stripeObject = dataObjectDeserializer.getObject().get();
+        log.debug("Deserialized stripe object class: {}", stripeObject.getClass().getName());
+
+        switch (event.getType()) {
+            case "checkout.session.completed":
+                if (stripeObject instanceof Session) {
+                    Session session = (Session) stripeObject;
+                    log.info("Processing checkout session completed: {} for customer: {}",
+                            session.getId(), session.getCustomer());
+                    subscriptionService.handleCheckoutSessionCompleted(session);
+                } else {
+                    log.error("Expected Session object but got: {}", stripeObject.getClass().getName());
+                }
+                break;
+
+            case "customer.subscription.created":
+            case "customer.subscription.updated":
+                if (stripeObject instanceof com.stripe.model.Subscription) {
+                    com.stripe.model.Subscription subscription = (com.stripe.model.Subscription) stripeObject;
+                    log.info("Processing subscription update: {} for customer: {}",
+                            subscription.getId(), subscription.getCustomer());
+                    subscriptionService.handleSubscriptionUpdated(subscription);
+                } else {
+                    log.error("Expected Subscription object but got: {}", stripeObject.getClass().getName());
+                }
+                break;
+
+            case "customer.subscription.deleted":
+                if (stripeObject instanceof com.stripe.model.Subscription) {
+                    com.stripe.model.Subscription subscription = (com.stripe.model.Subscription) stripeObject;
+                    log.info("Processing subscription deletion: {} for customer: {}",
+                            subscription.getId(), subscription.getCustomer());
+                    subscriptionService.handleSubscriptionCanceled(subscription);
+                } else {
+                    log.error("Expected Subscription object but got: {}", stripeObject.getClass().getName());
+                }
+                break;
+
+            case "price.created":
+            case "price.updated":
+            case "price.deleted":
+            case "product.created":
+            case "product.updated":
+            case "product.deleted":
+                log.info("Refreshing Stripe catalog after event: {} [{}]", event.getType(), event.getId());
+                catalogService.refresh();
+                break;
+
+            case "invoice.payment_succeeded":
+            case "invoice.paid":
+                log.info("Payment successful for invoice: {} [{}]", event.getId(), stripeObject.getClass().getName());
+                break;
+
+            case "invoice.payment_failed":
+                log.warn("Payment failed for invoice: {} [{}]", event.getId(), stripeObject.getClass().getName());
+                break;
+
+            default:
+                log.info("Unhandled event type: {} [{}]", event.getType(), event.getId());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.springsaas.payment.service;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.Customer;
+import com.stripe.model.Price;
+import com.stripe.model.Subscription;
+import com.stripe.param.SubscriptionUpdateParams;
+
+/**
+ * The only way the application talks to the Stripe API. Calls block, so callers keep them
+ * outside database transactions. Mutating calls take an idempotency key, which makes retries,
+ * whether by the gateway or by the caller, safe.
+ */
+public interface StripeGateway {
+
+    Customer createCustomer(String email, String name, String idempotencyKey) throws StripeException;
+
+    /**
+     * Retrieves a price with its product expanded.
+     */
+    Price retrievePrice(String priceId) throws StripeException;
+
+    com.stripe.model.checkout.Session createCheckoutSession(
+            String customerId, String priceId, String successUrl, String cancelUrl, String idempotencyKey)
+            throws StripeException;
+
+    com.stripe.model.checkout.Session retrieveCheckoutSession(String sessionId) throws StripeException;
+
+    Subscription retrieveSubscription(String subscriptionId) throws StripeException;
+
+    Subscription updateSubscription(String subscriptionId, SubscriptionUpdateParams params, String idempotencyKey)
+            throws StripeException;
+
+    com.stripe.model.billingportal.Session createPortalSession(String customerId, String returnUrl)
+            throws StripeException;
+}
@@ -0,0 +1,15 @@
+package com.example.springsaas.payment.service;
+
+/**
+ * Every Stripe API call the application makes. Timeouts, retries and bulkheads are configured
+ * per operation under {@code stripe.gateway.operations}.
+ */
+public enum StripeOperation {
+    CREATE_CUSTOMER,
+    RETRIEVE_PRICE,
+    CREATE_CHECKOUT_SESSION,
+    RETRIEVE_CHECKOUT_SESSION,
+    RETRIEVE_SUBSCRIPTION,
+    UPDATE_SUBSCRIPTION,
+    CREATE_PORTAL_SESSION
+}
@@ -0,0 +1,97 @@
+package com.example.springsaas.payment.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.payment.entity.WebhookInboxEvent.InboxStatus;
+import com.example.springsaas.payment.repository.WebhookInboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers recently received Stripe event ids so redeliveries are acknowledged
+ * without a database round trip. The unique index on the inbox table remains the
+ * source of truth once an id has fallen out of memory.
+ */
+@Slf4j
+@Component
+public class WebhookEventDeduplicator implements MetricsSource {
+
+    private final WebhookInboxEventRepository inboxRepository;
+    private final Map<String, Boolean> recentEventIds;
+    private final int retentionDays;
+
+    private final LongAdder memoryHits = new LongAdder();
+    private final LongAdder storeHits = new LongAdder();
+    private final LongAdder pruned = new LongAdder();
+
+    public WebhookEventDeduplicator(
+            WebhookInboxEventRepository inboxRepository,
+            @Value("${webhook.dedup.max-entries:100000}") int maxEntries,
+            @Value("${webhook.dedup.retention-days:30}") int retentionDays) {
+        this.inboxRepository = inboxRepository;
+        this.retentionDays = retentionDays;
+        this.recentEventIds = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean seenRecently(String eventId) {
+        boolean seen;
+        synchronized (recentEventIds) {
+            seen = recentEventIds.get(eventId) != null;
+        }
+        if (seen) {
+            memoryHits.increment();
+        }
+        return seen;
+    }
+
+    public void remember(String eventId) {
+        synchronized (recentEventIds) {
+            recentEventIds.put(eventId, Boolean.TRUE);
+        }
+    }
+
+    public void recordStoreHit(String eventId) {
+        storeHits.increment();
+        remember(eventId);
+    }
+
+    @Scheduled(cron = "${webhook.dedup.prune-cron:0 30 3 * * ?}")
+    @Transactional
+    public void pruneProcessedEvents() {
+        int deleted = inboxRepository.deleteByStatusAndProcessedAtBefore(
+                InboxStatus.PROCESSED, LocalDateTime.now().minusDays(retentionDays));
+        pruned.add(deleted);
+        log.info("Pruned {} processed webhook events older than {} days", deleted, retentionDays);
+    }
+
+    @Override
+    public String metricsName() {
+        return "webhook.dedup";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        int size;
+        synchronized (recentEventIds) {
+            size = recentEventIds.size();
+        }
+        return Map.of(
+                "trackedIds", size,
+                "duplicatesInMemory", memoryHits.sum(),
+                "duplicatesInStore", storeHits.sum(),
+                "pruned", pruned.sum()
+        );
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.springsaas.payment.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.payment.entity.WebhookInboxEvent;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drains the webhook inbox on a fixed pool of single-threaded lanes. The claim query hands out
+ * at most one event per Stripe customer at a time, in id order; lanes are picked by customer id
+ * so a customer's events also stay on one thread. Failed events are retried with jittered
+ * exponential backoff.
+ */
+@Slf4j
+@Component
+public class WebhookInboxProcessor implements MetricsSource {
+
+    private final WebhookInboxService inboxService;
+    private final StripeEventHandler eventHandler;
+    private final ExecutorService[] lanes;
+    private final Semaphore capacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long claimTimeoutMillis;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyMillis = new LongAdder();
+
+    public WebhookInboxProcessor(
+            WebhookInboxService inboxService,
+            StripeEventHandler eventHandler,
+            @Value("${webhook.inbox.workers:4}") int workers,
+            @Value("${webhook.inbox.max-in-flight:200}") int maxInFlight,
+            @Value("${webhook.inbox.batch-size:50}") int batchSize,
+            @Value("${webhook.inbox.max-attempts:5}") int maxAttempts,
+            @Value("${webhook.inbox.claim-timeout-ms:300000}") long claimTimeoutMillis,
+            @Value("${webhook.inbox.base-backoff-ms:5000}") long baseBackoffMillis,
+            @Value("${webhook.inbox.max-backoff-ms:600000}") long maxBackoffMillis) {
+        this.inboxService = inboxService;
+        this.eventHandler = eventHandler;
+        this.capacity = new Semaphore(maxInFlight);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeoutMillis = claimTimeoutMillis;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.lanes = new ExecutorService[workers];
+        AtomicInteger threadIndex = new AtomicInteger();
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "webhook-lane-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.inbox.poll-interval-ms:500}")
+    public void drain() {
+        int available = Math.min(batchSize, capacity.availablePermits());
+        if (available == 0) {
+            return;
+        }
+
+        List<WebhookInboxEvent> claimed = inboxService.claimBatch(available);
+        for (WebhookInboxEvent inboxEvent : claimed) {
+            capacity.acquireUninterruptibly();
+            laneFor(inboxEvent).execute(() -> {
+                try {
+                    process(inboxEvent);
+                } finally {
+                    capacity.release();
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${webhook.inbox.claim-timeout-ms:300000}")
+    public void releaseStaleClaims() {
+        int released = inboxService.releaseStaleClaims(LocalDateTime.now().minusNanos(claimTimeoutMillis * 1_000_000));
+        if (released > 0) {
+            log.warn("Released {} webhook events whose claim timed out", released);
+        }
+    }
+
+    private void process(WebhookInboxEvent inboxEvent) {
+        long start = System.currentTimeMillis();
+        try {
+            // The payload was signature-checked before it was stored
+            Event event = ApiResource.GSON.fromJson(inboxEvent.getPayload(), Event.class);
+            eventHandler.handle(event);
+            inboxService.markProcessed(inboxEvent.getId());
+            processed.increment();
+        } catch (Exception e) {
+            log.error("Error processing webhook event: {} [{}]: {}",
+                    inboxEvent.getEventType(), inboxEvent.getStripeEventId(), e.getMessage(), e);
+            LocalDateTime retryAt = LocalDateTime.now().plusNanos(backoffMillis(inboxEvent.getAttempts()) * 1_000_000);
+            inboxService.markFailed(inboxEvent.getId(), e.getMessage(), maxAttempts, retryAt);
+            failed.increment();
+        } finally {
+            totalLatencyMillis.add(System.currentTimeMillis() - start);
+        }
+    }
+
+    private long backoffMillis(int attempts) {
+        long exponential = baseBackoffMillis << Math.min(Math.max(attempts - 1, 0), 20);
+        long capped = Math.min(exponential, maxBackoffMillis);
+        // Jitter in [capped/2, capped] so retries from one outage spread out
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private ExecutorService laneFor(WebhookInboxEvent inboxEvent) {
+        String key = inboxEvent.getStripeCustomerId() != null
+                ? inboxEvent.getStripeCustomerId()
+                : inboxEvent.getStripeEventId();
+        return lanes[Math.floorMod(key.hashCode(), lanes.length)];
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                // Unfinished events stay PROCESSING and are picked up again after the claim timeout
+                lane.shutdownNow();
+            }
+        }
+    }
+
+    @Override
+    public String metricsName() {
+        return "webhook.inbox";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long done = processed.sum() + failed.sum();
+        return Map.of(
+                "processed", processed.sum(),
+                "failed", failed.sum(),
+                "availableCapacity", capacity.availablePermits(),
+                "avgProcessingMillis", done == 0 ? 0.0 : (double) totalLatencyMillis.sum() / done
+        );
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.springsaas.payment.service;
+
+import com.example.springsaas.payment.entity.WebhookInboxEvent;
+import com.example.springsaas.payment.entity.WebhookInboxEvent.InboxStatus;
+import com.example.springsaas.payment.repository.WebhookInboxEventRepository;
+import com.stripe.model.Customer;
+import com.stripe.model.Event;
+import com.stripe.model.Invoice;
+import com.stripe.model.StripeObject;
+import com.stripe.model.Subscription;
+import com.stripe.model.checkout.Session;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WebhookInboxService {
+
+    private static final String CLAIM_LOCK = "webhook-inbox-claim";
+
+    private final WebhookInboxEventRepository inboxRepository;
+
+    /**
+     * Stores a verified event for asynchronous processing.
+     *
+     * Runs without an outer transaction so a unique-key violation from a concurrent
+     * redelivery can be treated as a duplicate rather than a rollback.
+     *
+     * @return {@code false} if an event with the same Stripe id was already received
+     */
+    public boolean enqueue(Event event, String payload) {
+        if (inboxRepository.existsByStripeEventId(event.getId())) {
+            return false;
+        }
+
+        WebhookInboxEvent inboxEvent = new WebhookInboxEvent();
+        inboxEvent.setStripeEventId(event.getId());
+        inboxEvent.setEventType(event.getType());
+        inboxEvent.setStripeCustomerId(extractCustomerId(event));
+        inboxEvent.setPayload(payload);
+        inboxEvent.setStatus(InboxStatus.PENDING);
+        inboxEvent.setNextAttemptAt(LocalDateTime.now());
+
+        try {
+            inboxRepository.saveAndFlush(inboxEvent);
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            // Concurrent redelivery of the same event won the insert
+            return false;
+        }
+    }
+
+    /**
+     * Claims up to {@code limit} due events, in id order. Returns nothing while another node
+     * is claiming; it will be picked up on the next poll.
+     */
+    @Transactional
+    public List<WebhookInboxEvent> claimBatch(int limit) {
+        if (!inboxRepository.tryClaimLock(CLAIM_LOCK)) {
+            return List.of();
+        }
+        List<WebhookInboxEvent> claimed = new ArrayList<>(inboxRepository.claimPending(LocalDateTime.now(), limit));
+        // RETURNING gives no order guarantee
+        claimed.sort(Comparator.comparing(WebhookInboxEvent::getId));
+        return claimed;
+    }
+
+    @Transactional
+    public int releaseStaleClaims(LocalDateTime claimedBefore) {
+        return inboxRepository.releaseStaleClaims(claimedBefore, InboxStatus.PROCESSING, InboxStatus.PENDING);
+    }
+
+    @Transactional
+    public void markProcessed(Long id) {
+        inboxRepository.findById(id).ifPresent(event -> {
+            event.setStatus(InboxStatus.PROCESSED);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setClaimedAt(null);
+            event.setLastError(null);
+        });
+    }
+
+    /**
+     * Returns the event to the queue until {@code retryAt}, or gives up on it once it has used
+     * {@code maxAttempts}. Later events of the same customer wait while it is retried.
+     */
+    @Transactional
+    public void markFailed(Long id, String error, int maxAttempts, LocalDateTime retryAt) {
+        inboxRepository.findById(id).ifPresent(event -> {
+            event.setStatus(event.getAttempts() >= maxAttempts ? InboxStatus.FAILED : InboxStatus.PENDING);
+            event.setNextAttemptAt(retryAt);
+            event.setClaimedAt(null);
+            event.setLastError(error);
+            if (event.getStatus() == InboxStatus.FAILED) {
+                log.error("Giving up on webhook event {} [{}] after {} attempts: {}",
+                        event.getEventType(), event.getStripeEventId(), event.getAttempts(), error);
+            }
+        });
+    }
+
+    private String extractCustomerId(Event event) {
+        StripeObject object = event.getDataObjectDeserializer().getObject().orElse(null);
+        if (object instanceof Session session) {
+            return session.getCustomer();
+        }
+        if (object instanceof Subscription subscription) {
+            return subscription.getCustomer();
+        }
+        if (object instanceof Invoice invoice) {
+            return invoice.getCustomer();
+        }
+        if (object instanceof Customer customer) {
+            return customer.getId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.springsaas.scheduling.entity;
+
+import com.example.springsaas.common.entity.BaseEntity;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "job_runs",
+        indexes = {
+                @Index(name = "idx_job_runs_job_started", columnList = "job_name, started_at")
+        })
+public class JobRun extends BaseEntity {
+
+    @Column(name = "job_name", nullable = false)
+    private String jobName;
+
+    @Column(nullable = false)
+    private int shard;
+
+    @Column(nullable = false)
+    private int shardCount = 1;
+
+    @Column(nullable = false)
+    private String nodeId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column
+    private LocalDateTime finishedAt;
+
+    @Column
+    private Long durationMs;
+
+    @Column
+    private Long rowsProcessed;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private JobRunStatus status = JobRunStatus.RUNNING;
+
+    @Column(columnDefinition = "text")
+    private String error;
+
+    public enum JobRunStatus {
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.springsaas.scheduling.repository;
+
+import com.example.springsaas.scheduling.entity.JobRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    List<JobRun> findTop50ByJobNameOrderByStartedAtDesc(String jobName);
+}
@@ -0,0 +1,62 @@
+package com.example.springsaas.scheduling.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Cluster-wide mutual exclusion backed by PostgreSQL session advisory locks. The lock is held
+ * on a dedicated connection for the duration of the task, so the task itself is free to open
+ * and commit as many transactions as it needs.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AdvisoryLockService {
+
+    private final DataSource dataSource;
+
+    /**
+     * Runs {@code task} if no other node currently holds {@code lockName}.
+     *
+     * @return {@code true} if the task ran, {@code false} if the lock was held elsewhere
+     */
+    public boolean runExclusively(String lockName, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLock(connection, lockName)) {
+                log.debug("Advisory lock {} is held by another node, skipping", lockName);
+                return false;
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                unlock(connection, lockName);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to acquire advisory lock " + lockName, e);
+        }
+    }
+
+    private boolean tryLock(Connection connection, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(hashtext(?))")) {
+            statement.setString(1, lockName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private void unlock(Connection connection, String lockName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(hashtext(?))")) {
+            statement.setString(1, lockName);
+            statement.execute();
+        }
+    }
+}
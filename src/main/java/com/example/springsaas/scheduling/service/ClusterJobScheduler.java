@@ -0,0 +1,102 @@
+package com.example.springsaas.scheduling.service;
+
+import com.example.springsaas.scheduling.entity.JobRun;
+import com.example.springsaas.scheduling.entity.JobRun.JobRunStatus;
+import com.example.springsaas.scheduling.repository.JobRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs scheduled jobs once per cluster. Every node fires the same {@code @Scheduled} trigger;
+ * a PostgreSQL advisory lock per job (or per shard) elects the node that actually runs it,
+ * and every run is recorded in {@code job_runs}.
+ */
+@Slf4j
+@Service
+public class ClusterJobScheduler {
+
+    private final AdvisoryLockService advisoryLockService;
+    private final JobRunRepository jobRunRepository;
+    private final String nodeId;
+
+    public ClusterJobScheduler(
+            AdvisoryLockService advisoryLockService,
+            JobRunRepository jobRunRepository,
+            @Value("${scheduling.node-id:}") String nodeId) {
+        this.advisoryLockService = advisoryLockService;
+        this.jobRunRepository = jobRunRepository;
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+
+    @FunctionalInterface
+    public interface ShardedJob {
+
+        /**
+         * Processes one shard and returns the number of rows it handled.
+         */
+        long run(int shard, int shardCount);
+    }
+
+    /**
+     * Runs {@code job} on this node unless another node is already running it.
+     *
+     * @return {@code true} if this node ran the job
+     */
+    public boolean runExclusive(String jobName, LongSupplier job) {
+        return advisoryLockService.runExclusively(jobName, () -> execute(jobName, 0, 1, job));
+    }
+
+    /**
+     * Splits {@code job} into {@code shardCount} shards, each guarded by its own lock. Nodes walk
+     * the shards starting from a node-specific offset, so concurrent nodes pick different shards
+     * first and skip any shard another node holds. Shards must be idempotent, since a late
+     * node may pick up a shard after the original runner released it.
+     *
+     * @return the number of shards this node ran
+     */
+    public int runSharded(String jobName, int shardCount, ShardedJob job) {
+        int offset = Math.floorMod(nodeId.hashCode(), shardCount);
+        int ran = 0;
+        for (int i = 0; i < shardCount; i++) {
+            int shard = (offset + i) % shardCount;
+            boolean acquired = advisoryLockService.runExclusively(jobName + "#" + shard,
+                    () -> execute(jobName, shard, shardCount, () -> job.run(shard, shardCount)));
+            if (acquired) {
+                ran++;
+            }
+        }
+        return ran;
+    }
+
+    private void execute(String jobName, int shard, int shardCount, LongSupplier job) {
+        JobRun run = new JobRun();
+        run.setJobName(jobName);
+        run.setShard(shard);
+        run.setShardCount(shardCount);
+        run.setNodeId(nodeId);
+        run.setStartedAt(LocalDateTime.now());
+        run = jobRunRepository.save(run);
+
+        long start = System.nanoTime();
+        try {
+            long rows = job.getAsLong();
+            run.setRowsProcessed(rows);
+            run.setStatus(JobRunStatus.SUCCEEDED);
+            log.info("Job {} shard {}/{} processed {} rows on {}", jobName, shard, shardCount, rows, nodeId);
+        } catch (RuntimeException e) {
+            run.setStatus(JobRunStatus.FAILED);
+            run.setError(e.getMessage());
+            log.error("Job {} shard {}/{} failed on {}", jobName, shard, shardCount, nodeId, e);
+        } finally {
+            run.setFinishedAt(LocalDateTime.now());
+            run.setDurationMs(Duration.ofNanos(System.nanoTime() - start).toMillis());
+            jobRunRepository.save(run);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.common.collection.ConcurrentLongIntMap;
+import com.example.springsaas.common.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory revocation list for access tokens. Holds one "not before" millisecond per user: access
+ * tokens of that user issued earlier are rejected. An entry is only needed until every token it
+ * covers has expired, so the list never holds more than one access token lifetime of revocations.
+ */
+@Component
+public class AccessTokenRevocations implements MetricsSource {
+
+    private static final int NONE = Integer.MIN_VALUE;
+
+    // Low 32 bits of the epoch millisecond, compared by their difference, so values less than
+    // ~24 days apart order correctly without a long-valued map
+    private final ConcurrentLongIntMap notBeforeByUser;
+    // Revocations in insertion order, so the sweep only touches entries that expired; guarded by this
+    private final ArrayDeque<long[]> expiryQueue = new ArrayDeque<>();
+    private final long accessTokenTtlMillis;
+    private final LongAdder revocations = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AccessTokenRevocations(
+            @Value("${jwt.access-token.ttl-ms:900000}") long accessTokenTtlMillis,
+            @Value("${jwt.revocations.expected-size:1024}") int expectedSize) {
+        if (accessTokenTtlMillis >= Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("jwt.access-token.ttl-ms must be below " + Integer.MAX_VALUE / 2);
+        }
+        this.accessTokenTtlMillis = accessTokenTtlMillis;
+        this.notBeforeByUser = new ConcurrentLongIntMap(expectedSize);
+    }
+
+    /**
+     * Rejects access tokens of {@code userId} issued before {@code at}, compared at millisecond
+     * precision.
+     */
+    public synchronized void revoke(long userId, Instant at) {
+        long notBefore = at.toEpochMilli();
+        if (notBefore <= System.currentTimeMillis() - accessTokenTtlMillis) {
+            // every token issued before it has expired already
+            return;
+        }
+        int current = notBeforeByUser.get(userId, NONE);
+        if (current == NONE || stamp(notBefore) - current > 0) {
+            notBeforeByUser.put(userId, stamp(notBefore));
+            expiryQueue.addLast(new long[]{userId, notBefore});
+            revocations.increment();
+        }
+    }
+
+    /**
+     * Revokes once the surrounding transaction commits, so a rolled back change does not log the
+     * user out.
+     */
+    public void revokeAfterCommit(long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revoke(userId, Instant.now());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revoke(userId, Instant.now());
+            }
+        });
+    }
+
+    public boolean isRevoked(long userId, Instant issuedAt) {
+        int notBefore = notBeforeByUser.get(userId, NONE);
+        if (notBefore == NONE || stamp(issuedAt.toEpochMilli()) - notBefore >= 0) {
+            return false;
+        }
+        rejected.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocations.sweep-interval-ms:60000}")
+    public synchronized void sweep() {
+        long expiredUpTo = System.currentTimeMillis() - accessTokenTtlMillis;
+        while (!expiryQueue.isEmpty() && expiryQueue.peekFirst()[1] <= expiredUpTo) {
+            long[] entry = expiryQueue.pollFirst();
+            // a later revocation of the same user has its own queue entry
+            if (notBeforeByUser.get(entry[0], NONE) == stamp(entry[1])) {
+                notBeforeByUser.remove(entry[0]);
+            }
+        }
+    }
+
+    // Never NONE: a revocation landing on it moves one millisecond later
+    private static int stamp(long epochMilli) {
+        int stamp = (int) epochMilli;
+        return stamp == NONE ? NONE + 1 : stamp;
+    }
+
+    @Override
+    public String metricsName() {
+        return "jwt.revocations";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "users", notBeforeByUser.size(),
+                "revocations", revocations.sum(),
+                "rejectedTokens", rejected.sum());
+    }
+}
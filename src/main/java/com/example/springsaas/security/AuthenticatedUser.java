@@ -0,0 +1,91 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.authentication.entity.Role;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Principal rebuilt from the claims of an access token, so authenticated requests never
+ * load the {@code User} entity. Services that need the entity load it by {@link #getId()}.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final int roleMask;
+    private final boolean enabled;
+
+    public AuthenticatedUser(Long id, String email, int roleMask, boolean enabled) {
+        this.id = id;
+        this.email = email;
+        this.roleMask = roleMask;
+        this.enabled = enabled;
+    }
+
+    /**
+     * The principal of the current request.
+     */
+    public static AuthenticatedUser current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            throw new IllegalStateException("No authenticated user in the security context");
+        }
+        return user;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Set<String> getRoles() {
+        return Role.namesOf(roleMask);
+    }
+
+    public boolean hasRole(Role role) {
+        return role.in(roleMask);
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Role.authoritiesOf(roleMask);
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+}
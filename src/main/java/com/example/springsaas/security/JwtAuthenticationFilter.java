@@ -1,27 +1,34 @@
 package com.example.springsaas.security;
 
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+/**
+ * Authenticates requests from the claims of the access token alone; no user lookup happens here.
+ * Tokens of users who have not verified their email ({@code enabled} claim false) do not
+ * authenticate; the client refreshes after verification to get a token that does.
+ */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final JwtTokenCache tokenCache;
+    private final AccessTokenRevocations revocations;
 
     @Override
     protected void doFilterInternal(
@@ -31,7 +38,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String userEmail;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -39,16 +45,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         jwt = authHeader.substring(7);
-        userEmail = jwtService.extractUsername(jwt);
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            JwtTokenCache.CachedAuthentication cached = tokenCache.get(jwt);
+
+            if (cached == null) {
+                try {
+                    VerifiedToken token = jwtService.verify(jwt);
+                    cached = new JwtTokenCache.CachedAuthentication(token, jwtService.toPrincipal(token));
+                    tokenCache.put(jwt, token, cached.principal());
+                } catch (JwtException e) {
+                    // Expired or invalid tokens leave the request unauthenticated
+                    log.debug("Rejected bearer token: {}", e.getMessage());
+                }
+            }
+
+            if (cached != null && cached.principal().isEnabled()
+                    && !revocations.isRevoked(cached.principal().getId(), cached.token().issuedAt())) {
+                AuthenticatedUser principal = cached.principal();
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails,
+                        principal,
                         null,
-                        userDetails.getAuthorities()
+                        principal.getAuthorities()
                 );
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -56,4 +74,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.common.crypto.Sha256;
+import com.example.springsaas.config.JwtSigningProperties;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Signing and verification keys for access tokens, addressed by {@code kid}. Tokens are signed
+ * with the active key; any key of the ring verifies. To rotate: add the new key, wait for the
+ * JWKS max-age so verifiers have fetched it, make it active, and drop the old key once its last
+ * token has expired.
+ * <p>
+ * Startup fails without configured keys unless {@code jwt.signing.generate-dev-key} is set, as
+ * it is in the {@code dev} profile.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private final SignatureAlgorithm algorithm;
+    private final String activeKeyId;
+    private final PrivateKey signingKey;
+    private final Map<String, PublicKey> verificationKeys = new HashMap<>();
+    private final String jwksJson;
+    private final String jwksEtag;
+
+    public JwtKeyRing(JwtSigningProperties properties) {
+        this.algorithm = switch (properties.getAlgorithm()) {
+            case "RS256" -> Jwts.SIG.RS256;
+            case "ES256" -> Jwts.SIG.ES256;
+            default -> throw new IllegalStateException("Unsupported JWT signing algorithm: " + properties.getAlgorithm());
+        };
+
+        List<PublicJwk<?>> jwks = new ArrayList<>();
+        PrivateKey active = null;
+        String activeId = properties.getActiveKeyId();
+        if (properties.getKeys().isEmpty()) {
+            if (!properties.isGenerateDevKey()) {
+                throw new IllegalStateException("No JWT signing keys configured (jwt.signing.keys). Set "
+                        + "jwt.signing.generate-dev-key=true or use the dev profile to run with a throwaway key");
+            }
+            KeyPair generated = algorithm.keyPair().build();
+            PublicJwk<?> jwk = publicJwk(generated.getPublic(), null);
+            jwks.add(jwk);
+            verificationKeys.put(jwk.getId(), generated.getPublic());
+            active = generated.getPrivate();
+            activeId = jwk.getId();
+            log.warn("No JWT signing keys configured; generated throwaway {} key {}. Tokens will not survive "
+                    + "a restart and are not accepted by other nodes", algorithm.getId(), activeId);
+        }
+        for (JwtSigningProperties.Key key : properties.getKeys()) {
+            PublicKey publicKey = decode(key.getPublicKey(), "PUBLIC KEY", true);
+            PublicJwk<?> jwk = publicJwk(publicKey, key.getId());
+            jwks.add(jwk);
+            verificationKeys.put(jwk.getId(), publicKey);
+            if (jwk.getId().equals(activeId)) {
+                if (key.getPrivateKey() == null || key.getPrivateKey().isBlank()) {
+                    throw new IllegalStateException("Active JWT key " + activeId + " has no private key");
+                }
+                active = decode(key.getPrivateKey(), "PRIVATE KEY", false);
+            }
+        }
+        if (active == null) {
+            throw new IllegalStateException("jwt.signing.active-key-id does not name a configured key: " + activeId);
+        }
+        this.activeKeyId = activeId;
+        this.signingKey = active;
+
+        List<String> entries = jwks.stream().map(Jwks::json).toList();
+        this.jwksJson = "{\"keys\":[" + String.join(",", entries) + "]}";
+        this.jwksEtag = "\"" + Sha256.base64Url(jwksJson).substring(0, 27) + "\"";
+    }
+
+    public SignatureAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    public String activeKeyId() {
+        return activeKeyId;
+    }
+
+    public PrivateKey signingKey() {
+        return signingKey;
+    }
+
+    /**
+     * The public half of every key in the ring, as a JWK set.
+     */
+    public String jwksJson() {
+        return jwksJson;
+    }
+
+    public String jwksEtag() {
+        return jwksEtag;
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String keyId = header.getKeyId();
+        if (keyId == null) {
+            throw new JwtException("Token has no key id");
+        }
+        PublicKey key = verificationKeys.get(keyId);
+        if (key == null) {
+            throw new JwtException("Unknown signing key: " + keyId);
+        }
+        return key;
+    }
+
+    private PublicJwk<?> publicJwk(PublicKey publicKey, String keyId) {
+        var builder = Jwks.builder().key(publicKey)
+                .algorithm(algorithm.getId())
+                .publicKeyUse("sig");
+        return (keyId == null || keyId.isBlank() ? builder.idFromThumbprint() : builder.id(keyId)).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K extends Key> K decode(String pem, String type, boolean isPublic) {
+        String base64 = pem
+                .replace("-----BEGIN " + type + "-----", "")
+                .replace("-----END " + type + "-----", "")
+                .replaceAll("\\s", "");
+        try {
+            KeyFactory factory = KeyFactory.getInstance(algorithm == Jwts.SIG.RS256 ? "RSA" : "EC");
+            byte[] der = Base64.getDecoder().decode(base64);
+            return (K) (isPublic
+                    ? factory.generatePublic(new X509EncodedKeySpec(der))
+                    : factory.generatePrivate(new PKCS8EncodedKeySpec(der)));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid " + type + " PEM for JWT signing", e);
+        }
+    }
+}
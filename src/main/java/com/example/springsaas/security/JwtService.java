@@ -1,76 +1,100 @@
 package com.example.springsaas.security;
 
+import com.example.springsaas.authentication.entity.Role;
+import com.example.springsaas.authentication.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import javax.crypto.SecretKey;
-import java.util.Base64;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies access tokens. Keys come from {@link JwtKeyRing}, so other services can
+ * verify tokens locally against the published JWKS.
+ */
 @Service
 public class JwtService {
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String ENABLED_CLAIM = "enabled";
+    // "iat" has second precision; revocations compare issue times to the millisecond
+    static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
 
-    @Value("${jwt.expiration}")
-    private long jwtExpiration;
+    private final JwtKeyRing keyRing;
+    private final JwtParser parser;
+    private final long accessTokenTtlMillis;
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public JwtService(JwtKeyRing keyRing, @Value("${jwt.access-token.ttl-ms:900000}") long accessTokenTtlMillis) {
+        this.keyRing = keyRing;
+        this.accessTokenTtlMillis = accessTokenTtlMillis;
+        this.parser = Jwts.parser()
+                .keyLocator(keyRing)
+                .build();
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Verifies the signature and expiry of {@code token} once and returns its parsed claims.
+     */
+    public VerifiedToken verify(String token) {
+        return VerifiedToken.of(parser.parseSignedClaims(token).getPayload());
     }
 
-    public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+    public String extractUsername(String token) {
+        return verify(token).subject();
     }
 
-    public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+        return claimsResolver.apply(verify(token).claims());
+    }
+
+    /**
+     * Issues a short-lived access token carrying everything the filter needs to authorize a
+     * request, so authenticated requests never touch the database.
+     */
+    public String generateAccessToken(User user) {
+        long now = System.currentTimeMillis();
         return Jwts
                 .builder()
-                .claims(extraClaims)
-                .subject(userDetails.getUsername())
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey())
+                .header().keyId(keyRing.activeKeyId()).and()
+                .subject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLES_CLAIM, List.copyOf(user.getRoles()))
+                .claim(ENABLED_CLAIM, user.isEnabled())
+                .claim(ISSUED_AT_MILLIS_CLAIM, now)
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + accessTokenTtlMillis))
+                .signWith(keyRing.signingKey(), keyRing.algorithm())
                 .compact();
     }
 
-    public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public Duration getAccessTokenTtl() {
+        return Duration.ofMillis(accessTokenTtlMillis);
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Rebuilds the principal from the claims of a verified access token.
+     *
+     * @throws JwtException if the token lacks the access token claims
+     */
+    public AuthenticatedUser toPrincipal(VerifiedToken token) {
+        Claims claims = token.claims();
+        if (token.subject() == null || token.issuedAt() == null
+                || !(claims.get(USER_ID_CLAIM) instanceof Number userId)) {
+            throw new JwtException("Not an access token");
+        }
+        int roleMask = claims.get(ROLES_CLAIM) instanceof Collection<?> names ? Role.maskOf(names) : 0;
+        return new AuthenticatedUser(
+                userId.longValue(),
+                token.subject(),
+                roleMask,
+                Boolean.TRUE.equals(claims.get(ENABLED_CLAIM, Boolean.class)));
     }
-} 
\ No newline at end of file
+}
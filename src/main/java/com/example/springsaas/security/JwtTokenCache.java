@@ -0,0 +1,58 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.common.cache.BoundedTtlCache;
+import com.example.springsaas.common.crypto.Sha256;
+import com.example.springsaas.common.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Caches verified access tokens so repeated requests with the same bearer token skip
+ * signature verification. Entries never outlive the token; revocation is checked on every
+ * request by {@link AccessTokenRevocations}, not here.
+ */
+@Component
+public class JwtTokenCache implements MetricsSource {
+
+    private final BoundedTtlCache<String, CachedAuthentication> cache;
+
+    public JwtTokenCache(
+            @Value("${jwt.cache.max-size:10000}") int maxSize,
+            @Value("${jwt.cache.ttl-ms:300000}") long ttlMillis) {
+        this.cache = new BoundedTtlCache<>(maxSize, Duration.ofMillis(ttlMillis));
+    }
+
+    public CachedAuthentication get(String token) {
+        return cache.get(Sha256.base64Url(token));
+    }
+
+    public void put(String token, VerifiedToken verified, AuthenticatedUser principal) {
+        Duration ttl = verified.expiresAt() == null
+                ? Duration.ZERO
+                : Duration.between(Instant.now(), verified.expiresAt());
+        cache.put(Sha256.base64Url(token), new CachedAuthentication(verified, principal), ttl);
+    }
+
+    @Override
+    public String metricsName() {
+        return "jwt.token-cache";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "size", cache.size(),
+                "hits", cache.hitCount(),
+                "misses", cache.missCount(),
+                "evictions", cache.evictionCount(),
+                "hitRatio", cache.hitRatio()
+        );
+    }
+
+    public record CachedAuthentication(VerifiedToken token, AuthenticatedUser principal) {
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.common.dto.ErrorResponse;
+import com.example.springsaas.config.RateLimitProperties;
+import com.example.springsaas.config.RateLimitProperties.KeyType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Applies the per-route limits from {@code rate-limit.routes}. Runs after
+ * {@link JwtAuthenticationFilter} so USER keys can use the authenticated user. EMAIL keys read
+ * the {@code email} request parameter or, for JSON requests, the top-level {@code email} field
+ * of the body; on such routes the body is buffered (up to {@code max-body-bytes}, larger bodies
+ * get a 413) and handed on to the controller.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int trustedProxies;
+    private final int maxBodyBytes;
+    private final List<CompiledRoute> routes;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.isEnabled();
+        this.trustedProxies = properties.getTrustedProxies();
+        this.maxBodyBytes = properties.getMaxBodyBytes();
+        List<RateLimitProperties.Route> configured = properties.getRoutes();
+        this.routes = IntStream.range(0, configured.size())
+                .mapToObj(i -> CompiledRoute.of(i, configured.get(i)))
+                .toList();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !enabled || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+
+        for (CompiledRoute route : routes) {
+            if (!route.matches(method, path)) {
+                continue;
+            }
+            if (route.keyedByEmail() && isJson(request) && !(request instanceof CachedBodyRequest)) {
+                CachedBodyRequest cached = CachedBodyRequest.read(request, maxBodyBytes);
+                if (cached == null) {
+                    writeError(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+                    return;
+                }
+                request = cached;
+            }
+            KeyType[] keyTypes = route.keys();
+            String[] keys = new String[keyTypes.length];
+            int keyCount = 0;
+            for (KeyType keyType : keyTypes) {
+                String subject = subject(keyType, request);
+                if (subject != null) {
+                    keys[keyCount++] = route.prefix() + keyType.ordinal() + ':' + subject;
+                }
+            }
+            if (keyCount == 0) {
+                continue;
+            }
+            // All keys of the route are charged together, so a rejection costs none of them a token
+            long waitNanos = rateLimiter.tryAcquire(
+                    route.prefix() + "overflow",
+                    route.capacity(),
+                    route.periodNanos(),
+                    keyCount == keys.length ? keys : Arrays.copyOf(keys, keyCount));
+            if (waitNanos > 0) {
+                reject(request, response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String subject(KeyType keyType, HttpServletRequest request) {
+        return switch (keyType) {
+            case IP -> clientIp(request);
+            case EMAIL -> {
+                String email = request.getParameter("email");
+                if (email == null && request instanceof CachedBodyRequest cached) {
+                    email = jsonEmail(cached.body());
+                }
+                yield email == null || email.isBlank() ? null : email.trim().toLowerCase(Locale.ROOT);
+            }
+            case USER -> {
+                Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+                yield authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user
+                        ? String.valueOf(user.getId())
+                        : null;
+            }
+        };
+    }
+
+    private String jsonEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).path("email");
+            return email.isTextual() ? email.asText() : null;
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the controller; the IP bucket still applies
+            return null;
+        }
+    }
+
+    private static boolean isJson(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType == null) {
+            return false;
+        }
+        try {
+            return MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (trustedProxies > 0) {
+            // Each proxy appends the address it saw, so only the right-most entries are trustworthy
+            List<String> forwarded = Collections.list(request.getHeaders("X-Forwarded-For")).stream()
+                    .flatMap(header -> Arrays.stream(header.split(",")))
+                    .map(String::trim)
+                    .filter(entry -> !entry.isEmpty())
+                    .toList();
+            if (forwarded.size() >= trustedProxies) {
+                return forwarded.get(forwarded.size() - trustedProxies);
+            }
+            // Fewer entries than proxies: the request bypassed a proxy, so nothing in it is trusted
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        writeError(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                "Too many requests, retry in " + retryAfterSeconds + "s");
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                            String message) throws IOException {
+        ErrorResponse errorResponse = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(status.value())
+                .error(status.getReasonPhrase())
+                .message(message)
+                .path(request.getRequestURI())
+                .build();
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    private record CompiledRoute(String method, String path, boolean prefixMatch, String prefix,
+                                 int capacity, long periodNanos, KeyType[] keys) {
+
+        static CompiledRoute of(int index, RateLimitProperties.Route route) {
+            boolean prefixMatch = route.getPath().endsWith("/**");
+            String path = prefixMatch ? route.getPath().substring(0, route.getPath().length() - 2) : route.getPath();
+            return new CompiledRoute(
+                    route.getMethod() == null ? null : route.getMethod().toUpperCase(Locale.ROOT),
+                    path,
+                    prefixMatch,
+                    "r" + index + ':',
+                    route.getCapacity(),
+                    route.getPeriod().toNanos(),
+                    route.getKeys().toArray(KeyType[]::new));
+        }
+
+        boolean keyedByEmail() {
+            return Arrays.asList(keys).contains(KeyType.EMAIL);
+        }
+
+        boolean matches(String requestMethod, String requestPath) {
+            if (method != null && !method.equals(requestMethod)) {
+                return false;
+            }
+            return prefixMatch ? requestPath.startsWith(path) : requestPath.equals(path);
+        }
+    }
+}
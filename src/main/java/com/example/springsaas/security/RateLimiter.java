@@ -0,0 +1,121 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.config.RateLimitProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token buckets, one per key. Each bucket is a single {@link AtomicLong} holding its
+ * theoretical arrival time (GCRA, the "virtual scheduling" form of a token bucket), so a check
+ * is one read and at most a few CAS attempts. A bucket whose arrival time has passed is full,
+ * which is the same as having no bucket, so idle buckets are dropped without losing state.
+ * When the map is full, at most one request per {@code inline-sweep-interval} pays for a sweep;
+ * the others go straight to the overflow bucket.
+ */
+@Component
+public class RateLimiter implements MetricsSource {
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final int maxBuckets;
+    private final long inlineSweepIntervalNanos;
+    private final AtomicLong nextInlineSweep = new AtomicLong(System.nanoTime());
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder limited = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.maxBuckets = properties.getMaxBuckets();
+        this.inlineSweepIntervalNanos = properties.getInlineSweepInterval().toNanos();
+    }
+
+    /**
+     * Takes one token from the bucket of every key in {@code keys}, or from none of them: if any
+     * bucket is empty, the tokens already taken from the others are given back.
+     *
+     * @return 0 if allowed, otherwise the nanoseconds until the empty bucket has a token
+     */
+    public long tryAcquire(String overflowKey, int capacity, long periodNanos, String... keys) {
+        long now = System.nanoTime();
+        long interval = periodNanos / capacity;
+        long burst = periodNanos - interval;
+        AtomicLong[] taken = new AtomicLong[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            AtomicLong bucket = bucket(keys[i], overflowKey, now);
+            long wait = take(bucket, now, interval, burst);
+            if (wait > 0) {
+                for (int j = 0; j < i; j++) {
+                    // Exact refund: moves the arrival time back by the one interval we added
+                    taken[j].addAndGet(-interval);
+                }
+                limited.increment();
+                return wait;
+            }
+            taken[i] = bucket;
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    private AtomicLong bucket(String key, String overflowKey, long now) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxBuckets) {
+            // A full sweep is O(buckets), so under a key spray only one request per interval runs it
+            long due = nextInlineSweep.get();
+            if (now - due >= 0 && nextInlineSweep.compareAndSet(due, now + inlineSweepIntervalNanos)) {
+                removeIdle(now);
+            }
+            if (buckets.size() >= maxBuckets) {
+                overflowed.increment();
+                key = overflowKey;
+            }
+        }
+        return buckets.computeIfAbsent(key, ignored -> new AtomicLong(now));
+    }
+
+    private static long take(AtomicLong bucket, long now, long interval, long burst) {
+        while (true) {
+            long arrival = bucket.get();
+            long start = Math.max(arrival, now);
+            long wait = start - burst - now;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms:30000}")
+    public void sweep() {
+        removeIdle(System.nanoTime());
+    }
+
+    private void removeIdle(long now) {
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    @Override
+    public String metricsName() {
+        return "rate-limit";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "buckets", buckets.size(),
+                "allowed", allowed.sum(),
+                "limited", limited.sum(),
+                "overflowed", overflowed.sum());
+    }
+}
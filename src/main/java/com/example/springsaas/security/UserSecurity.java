@@ -1,14 +1,11 @@
 package com.example.springsaas.security;
 
-import com.example.springsaas.authentication.entity.User;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component("userSecurity")
 public class UserSecurity {
     
     public boolean isCurrentUser(Long userId) {
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return currentUser.getId().equals(userId);
+        return AuthenticatedUser.current().getId().equals(userId);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.springsaas.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Result of a single signature check and parse of a JWT. {@code issuedAt} has millisecond
+ * precision when the token carries {@link JwtService#ISSUED_AT_MILLIS_CLAIM}, otherwise the second
+ * precision of {@code iat}.
+ */
+public record VerifiedToken(String subject, Instant issuedAt, Instant expiresAt, Claims claims) {
+
+    static VerifiedToken of(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                issuedAt(claims),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant(),
+                claims
+        );
+    }
+
+    private static Instant issuedAt(Claims claims) {
+        if (claims.get(JwtService.ISSUED_AT_MILLIS_CLAIM) instanceof Number millis) {
+            return Instant.ofEpochMilli(millis.longValue());
+        }
+        return claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant();
+    }
+
+    public boolean isExpired() {
+        return expiresAt == null || !expiresAt.isAfter(Instant.now());
+    }
+}
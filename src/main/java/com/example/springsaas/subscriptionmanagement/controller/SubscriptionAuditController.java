@@ -0,0 +1,65 @@
+package com.example.springsaas.subscriptionmanagement.controller;
+
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditFilter;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditPage;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.example.springsaas.subscriptionmanagement.service.SubscriptionAuditQueryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/admin/subscription-audits")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class SubscriptionAuditController {
+
+    private final SubscriptionAuditQueryService auditQueryService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping
+    public ResponseEntity<SubscriptionAuditPage> getAudits(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) SubscriptionPlan plan,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+        SubscriptionAuditFilter filter = new SubscriptionAuditFilter(userId, plan, status, from, to);
+        return ResponseEntity.ok(auditQueryService.page(filter, cursor, limit));
+    }
+
+    /**
+     * Streams every matching entry as newline-delimited JSON.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportAudits(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) SubscriptionPlan plan,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        SubscriptionAuditFilter filter = new SubscriptionAuditFilter(userId, plan, status, from, to);
+        StreamingResponseBody body = outputStream -> auditQueryService.forEach(filter, entry -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(entry));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+}
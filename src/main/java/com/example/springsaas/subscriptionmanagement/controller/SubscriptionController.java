@@ -3,6 +3,7 @@ package com.example.springsaas.subscriptionmanagement.controller;
 import com.example.springsaas.subscriptionmanagement.dto.SubscriptionRequest;
 import com.example.springsaas.subscriptionmanagement.dto.SubscriptionResponse;
 import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.example.springsaas.subscriptionmanagement.service.EntitlementService;
 import com.example.springsaas.subscriptionmanagement.service.SubscriptionService;
 import com.stripe.exception.StripeException;
 import jakarta.validation.Valid;
@@ -20,6 +21,7 @@ import java.util.Map;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final EntitlementService entitlementService;
 
     @PostMapping("/create-checkout-session")
     @PreAuthorize("isAuthenticated()")
@@ -30,14 +32,19 @@ public class SubscriptionController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<SubscriptionResponse>> getUserSubscriptions() {
-        return ResponseEntity.ok(subscriptionService.getUserSubscriptions());
+    public ResponseEntity<List<SubscriptionResponse>> getUserSubscriptions(
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(subscriptionService.getUserSubscriptions(before, limit));
     }
 
     @GetMapping("/user/{userId}")
     @PreAuthorize("hasRole('ADMIN') or @userSecurity.isCurrentUser(#userId)")
-    public ResponseEntity<List<SubscriptionResponse>> getUserSubscriptionsByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(subscriptionService.getUserSubscriptionsByUserId(userId));
+    public ResponseEntity<List<SubscriptionResponse>> getUserSubscriptionsByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(subscriptionService.getUserSubscriptionsByUserId(userId, before, limit));
     }
 
     @GetMapping("/active/user/{userId}")
@@ -46,6 +53,14 @@ public class SubscriptionController {
         return ResponseEntity.ok(subscriptionService.getUserActiveSubscription(userId));
     }
 
+    @GetMapping("/entitlements/user/{userId}")
+    @PreAuthorize("hasRole('ADMIN') or @userSecurity.isCurrentUser(#userId)")
+    public ResponseEntity<Map<String, Object>> getUserEntitlements(@PathVariable Long userId) {
+        return ResponseEntity.ok(Map.of(
+                "plan", entitlementService.planOf(userId),
+                "features", entitlementService.featuresOf(userId)));
+    }
+
     @PostMapping("/activate")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> activateSubscription(@RequestParam String sessionId) {
@@ -0,0 +1,16 @@
+package com.example.springsaas.subscriptionmanagement.dto;
+
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+
+import java.math.BigDecimal;
+
+public record CatalogPrice(
+        SubscriptionPlan plan,
+        String priceId,
+        String productId,
+        String productName,
+        BigDecimal amount,
+        String currency,
+        boolean active
+) {
+}
@@ -0,0 +1,7 @@
+package com.example.springsaas.subscriptionmanagement.dto;
+
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
+
+public record EntitlementRow(Long userId, SubscriptionPlan plan, SubscriptionStatus status) {
+}
@@ -0,0 +1,15 @@
+package com.example.springsaas.subscriptionmanagement.dto;
+
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+
+import java.time.LocalDateTime;
+
+public record SubscriptionAuditEntry(
+        Long id,
+        Long userId,
+        SubscriptionPlan plan,
+        String stripeSessionId,
+        String status,
+        String errorMessage,
+        LocalDateTime createdAt) {
+}
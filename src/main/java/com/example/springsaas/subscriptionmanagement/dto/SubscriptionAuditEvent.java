@@ -0,0 +1,14 @@
+package com.example.springsaas.subscriptionmanagement.dto;
+
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+
+import java.time.LocalDateTime;
+
+public record SubscriptionAuditEvent(
+        Long userId,
+        SubscriptionPlan plan,
+        String stripeSessionId,
+        String status,
+        String errorMessage,
+        LocalDateTime createdAt) {
+}
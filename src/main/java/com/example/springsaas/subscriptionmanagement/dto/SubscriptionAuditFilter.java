@@ -0,0 +1,16 @@
+package com.example.springsaas.subscriptionmanagement.dto;
+
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters for the audit query API; {@code from} is inclusive, {@code to} exclusive.
+ */
+public record SubscriptionAuditFilter(
+        Long userId,
+        SubscriptionPlan plan,
+        String status,
+        LocalDateTime from,
+        LocalDateTime to) {
+}
@@ -0,0 +1,9 @@
+package com.example.springsaas.subscriptionmanagement.dto;
+
+import java.util.List;
+
+/**
+ * One page of audit entries, newest first. {@code nextCursor} is null on the last page.
+ */
+public record SubscriptionAuditPage(List<SubscriptionAuditEntry> items, String nextCursor) {
+}
@@ -2,14 +2,18 @@ package com.example.springsaas.subscriptionmanagement.dto;
 
 import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
 import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class SubscriptionResponse {
     private Long id;
     private Long userId;
@@ -20,7 +20,7 @@ public class SubscriptionAudit extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private Subscription.SubscriptionPlan plan;
 
-    @Column(nullable = false)
+    @Column
     private String stripeSessionId;
 
     @Column(nullable = false)
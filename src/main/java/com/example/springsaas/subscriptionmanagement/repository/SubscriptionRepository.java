@@ -1,12 +1,18 @@
 package com.example.springsaas.subscriptionmanagement.repository;
 
 import com.example.springsaas.authentication.entity.User;
+import com.example.springsaas.subscriptionmanagement.dto.EntitlementRow;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionResponse;
 import com.example.springsaas.subscriptionmanagement.entity.Subscription;
 import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +23,32 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
     List<Subscription> findAllByUser(User user);
     List<Subscription> findAllByStatusAndCurrentPeriodEndBefore(SubscriptionStatus status, LocalDateTime date);
     boolean existsByUserAndStatus(User user, SubscriptionStatus status);
-} 
\ No newline at end of file
+
+    String RESPONSE_PROJECTION = "select new com.example.springsaas.subscriptionmanagement.dto.SubscriptionResponse(" +
+            "s.id, s.user.id, s.plan, s.status, s.amount, s.currency, s.currentPeriodStart, s.currentPeriodEnd, " +
+            "s.stripeSubscriptionId, s.canceledAt, s.cancelReason) from Subscription s ";
+
+    /**
+     * Keyset page of a user's subscriptions, newest first, starting below {@code beforeId}.
+     */
+    @Query(RESPONSE_PROJECTION + "where s.user.id = :userId and s.id < :beforeId order by s.id desc")
+    List<SubscriptionResponse> findResponsesByUserId(@Param("userId") Long userId,
+                                                     @Param("beforeId") Long beforeId,
+                                                     Pageable pageable);
+
+    @Query(RESPONSE_PROJECTION + "where s.user.id = :userId and s.status = :status")
+    Optional<SubscriptionResponse> findResponseByUserIdAndStatus(@Param("userId") Long userId,
+                                                                 @Param("status") SubscriptionStatus status);
+
+    @Query("select new com.example.springsaas.subscriptionmanagement.dto.EntitlementRow(s.user.id, s.plan, s.status) " +
+            "from Subscription s where s.status in :statuses order by s.id")
+    List<EntitlementRow> findEntitlementRows(@Param("statuses") Collection<SubscriptionStatus> statuses);
+
+    @Query("select new com.example.springsaas.subscriptionmanagement.dto.EntitlementRow(s.user.id, s.plan, s.status) " +
+            "from Subscription s where s.user.id in :userIds and s.status in :statuses order by s.id")
+    List<EntitlementRow> findEntitlementRowsForUsers(@Param("userIds") Collection<Long> userIds,
+                                                     @Param("statuses") Collection<SubscriptionStatus> statuses);
+
+    @Query("select distinct s.user.id from Subscription s where s.updatedAt > :since")
+    List<Long> findUserIdsUpdatedSince(@Param("since") LocalDateTime since);
+}
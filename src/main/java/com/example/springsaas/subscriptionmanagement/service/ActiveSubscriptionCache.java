@@ -0,0 +1,81 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.common.cache.BoundedTtlCache;
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of each user's active subscription, including the "no active
+ * subscription" answer. Writers invalidate after commit.
+ */
+@Component
+public class ActiveSubscriptionCache implements MetricsSource {
+
+    private final BoundedTtlCache<Long, Optional<SubscriptionResponse>> cache;
+
+    // Bumped on every invalidation; a load that raced with one is returned but not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public ActiveSubscriptionCache(
+            @Value("${subscription.active-cache.max-size:50000}") int maxSize,
+            @Value("${subscription.active-cache.ttl-ms:60000}") long ttlMillis) {
+        this.cache = new BoundedTtlCache<>(maxSize, Duration.ofMillis(ttlMillis));
+    }
+
+    public Optional<SubscriptionResponse> get(Long userId, Supplier<Optional<SubscriptionResponse>> loader) {
+        Optional<SubscriptionResponse> cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long observed = generation.get();
+        Optional<SubscriptionResponse> loaded = loader.get();
+        if (generation.get() == observed) {
+            cache.put(userId, loaded);
+        }
+        return loaded;
+    }
+
+    public void invalidate(Long userId) {
+        generation.incrementAndGet();
+        cache.invalidate(userId);
+    }
+
+    public void invalidateAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(userId);
+            }
+        });
+    }
+
+    @Override
+    public String metricsName() {
+        return "subscription.active-cache";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "size", cache.size(),
+                "hits", cache.hitCount(),
+                "misses", cache.missCount(),
+                "evictions", cache.evictionCount(),
+                "hitRatio", cache.hitRatio()
+        );
+    }
+}
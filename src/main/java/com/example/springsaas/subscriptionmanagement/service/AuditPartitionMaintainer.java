@@ -0,0 +1,97 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.scheduling.service.ClusterJobScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keeps monthly partitions of {@code subscription_audits} ahead of time and drops the ones
+ * that fall out of the retention window.
+ */
+@Slf4j
+@Service
+public class AuditPartitionMaintainer {
+
+    private static final String PREFIX = "subscription_audits_";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterJobScheduler clusterJobScheduler;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public AuditPartitionMaintainer(
+            JdbcTemplate jdbcTemplate,
+            ClusterJobScheduler clusterJobScheduler,
+            @Value("${app.audit.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${app.audit.partitions.retention-months:24}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterJobScheduler = clusterJobScheduler;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.audit.partitions.cron:0 15 0 * * ?}")
+    public void maintain() {
+        clusterJobScheduler.runExclusive("audit-partition-maintenance", this::maintainPartitions);
+    }
+
+    private long maintainPartitions() {
+        if (!isPartitioned()) {
+            log.warn("subscription_audits is not partitioned yet, skipping partition maintenance");
+            return 0;
+        }
+        YearMonth current = YearMonth.now();
+        long changed = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF subscription_audits FOR VALUES FROM ('%s') TO ('%s')",
+                    PREFIX + month.format(SUFFIX), month.atDay(1), month.plusMonths(1).atDay(1)));
+        }
+
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        List<String> partitions = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                  JOIN pg_class c ON c.oid = i.inhrelid
+                 WHERE i.inhparent = 'subscription_audits'::regclass""", String.class);
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                jdbcTemplate.execute("ALTER TABLE subscription_audits DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped expired audit partition {}", partition);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private boolean isPartitioned() {
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('subscription_audits')", String.class);
+        return "p".equals(kind);
+    }
+
+    private static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null; // e.g. the default partition
+        }
+    }
+}
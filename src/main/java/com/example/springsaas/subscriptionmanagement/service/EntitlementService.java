@@ -0,0 +1,210 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.common.collection.ConcurrentLongIntMap;
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.subscriptionmanagement.dto.EntitlementRow;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
+import com.example.springsaas.subscriptionmanagement.repository.SubscriptionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Answers feature checks from an in-memory snapshot of every user's current plan, e.g.
+ * {@code @PreAuthorize("@entitlements.has(#userId, 'advanced-analytics')")}. Each user maps to
+ * one packed int (plan and status ordinals) in a primitive open-addressing table, so a check
+ * never touches JPA. Subscription writes on this node apply after commit; changes made on
+ * other nodes are picked up by a periodic delta sync on {@code updatedAt}.
+ */
+@Slf4j
+@Service("entitlements")
+public class EntitlementService implements MetricsSource {
+
+    public enum Feature {
+        API_ACCESS(SubscriptionPlan.BASIC),
+        EMAIL_SUPPORT(SubscriptionPlan.BASIC),
+        ADVANCED_ANALYTICS(SubscriptionPlan.PREMIUM),
+        PRIORITY_SUPPORT(SubscriptionPlan.PREMIUM),
+        SSO(SubscriptionPlan.ENTERPRISE),
+        AUDIT_LOG_EXPORT(SubscriptionPlan.ENTERPRISE);
+
+        private final SubscriptionPlan minimumPlan;
+
+        Feature(SubscriptionPlan minimumPlan) {
+            this.minimumPlan = minimumPlan;
+        }
+
+        public SubscriptionPlan getMinimumPlan() {
+            return minimumPlan;
+        }
+    }
+
+    static final Set<SubscriptionStatus> ENTITLING_STATUSES =
+            EnumSet.of(SubscriptionStatus.ACTIVE, SubscriptionStatus.TRIAL, SubscriptionStatus.PAST_DUE);
+
+    private static final int MISSING = -1;
+    private static final SubscriptionPlan[] PLANS = SubscriptionPlan.values();
+    private static final Map<String, Feature> FEATURES_BY_NAME = new HashMap<>();
+
+    static {
+        for (Feature feature : Feature.values()) {
+            String lower = feature.name().toLowerCase(Locale.ROOT);
+            FEATURES_BY_NAME.put(feature.name(), feature);
+            FEATURES_BY_NAME.put(lower, feature);
+            FEATURES_BY_NAME.put(lower.replace('_', '-'), feature);
+        }
+    }
+
+    private final SubscriptionRepository subscriptionRepository;
+    private final ConcurrentLongIntMap plansByUser;
+    private final Duration syncOverlap;
+
+    private volatile LocalDateTime syncedUpTo;
+    private volatile LocalDateTime lastSyncAt;
+
+    public EntitlementService(
+            SubscriptionRepository subscriptionRepository,
+            @Value("${entitlements.expected-users:10000}") int expectedUsers,
+            @Value("${entitlements.sync-overlap-ms:10000}") long syncOverlapMillis) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.plansByUser = new ConcurrentLongIntMap(expectedUsers);
+        this.syncOverlap = Duration.ofMillis(syncOverlapMillis);
+    }
+
+    public boolean has(Long userId, String feature) {
+        Feature resolved = FEATURES_BY_NAME.get(feature);
+        if (resolved == null) {
+            log.warn("Unknown feature in entitlement check: {}", feature);
+            return false;
+        }
+        return has(userId, resolved);
+    }
+
+    public boolean has(Long userId, Feature feature) {
+        return planOf(userId).ordinal() >= feature.getMinimumPlan().ordinal();
+    }
+
+    public SubscriptionPlan planOf(Long userId) {
+        if (userId == null) {
+            return SubscriptionPlan.FREE;
+        }
+        int packed = plansByUser.get(userId, MISSING);
+        return packed == MISSING ? SubscriptionPlan.FREE : PLANS[packed & 0xFF];
+    }
+
+    public Set<Feature> featuresOf(Long userId) {
+        SubscriptionPlan plan = planOf(userId);
+        Set<Feature> features = EnumSet.noneOf(Feature.class);
+        for (Feature feature : Feature.values()) {
+            if (plan.ordinal() >= feature.getMinimumPlan().ordinal()) {
+                features.add(feature);
+            }
+        }
+        return features;
+    }
+
+    /**
+     * Applies a subscription change once the surrounding transaction commits.
+     */
+    public void applyAfterCommit(Long userId, SubscriptionPlan plan, SubscriptionStatus status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, plan, status);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(userId, plan, status);
+            }
+        });
+    }
+
+    private void apply(Long userId, SubscriptionPlan plan, SubscriptionStatus status) {
+        if (ENTITLING_STATUSES.contains(status)) {
+            plansByUser.put(userId, pack(plan, status));
+        } else {
+            // The user may still hold another entitling subscription, so look it up
+            refreshUsers(List.of(userId));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAll() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<EntitlementRow> rows = subscriptionRepository.findEntitlementRows(ENTITLING_STATUSES);
+        long[] keys = new long[rows.size()];
+        int[] values = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            EntitlementRow row = rows.get(i);
+            keys[i] = row.userId();
+            values[i] = pack(row.plan(), row.status());
+        }
+        // rows are ordered by subscription id, so a user's newest subscription wins
+        plansByUser.replaceAll(keys, values, rows.size());
+        syncedUpTo = startedAt;
+        lastSyncAt = startedAt;
+        log.info("Loaded entitlements for {} users", plansByUser.size());
+    }
+
+    @Scheduled(fixedDelayString = "${entitlements.sync-interval-ms:30000}",
+            initialDelayString = "${entitlements.sync-interval-ms:30000}")
+    public void syncChanges() {
+        if (syncedUpTo == null) {
+            return;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<Long> changedUsers = subscriptionRepository.findUserIdsUpdatedSince(syncedUpTo.minus(syncOverlap));
+        if (!changedUsers.isEmpty()) {
+            refreshUsers(changedUsers);
+        }
+        syncedUpTo = startedAt;
+        lastSyncAt = startedAt;
+    }
+
+    private void refreshUsers(Collection<Long> userIds) {
+        Map<Long, Integer> current = new HashMap<>();
+        for (EntitlementRow row : subscriptionRepository.findEntitlementRowsForUsers(userIds, ENTITLING_STATUSES)) {
+            current.put(row.userId(), pack(row.plan(), row.status()));
+        }
+        for (Long userId : userIds) {
+            Integer packed = current.get(userId);
+            if (packed != null) {
+                plansByUser.put(userId, packed);
+            } else {
+                plansByUser.remove(userId);
+            }
+        }
+    }
+
+    private static int pack(SubscriptionPlan plan, SubscriptionStatus status) {
+        return status.ordinal() << 8 | plan.ordinal();
+    }
+
+    @Override
+    public String metricsName() {
+        return "entitlements";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "users", plansByUser.size(),
+                "lastSyncAt", lastSyncAt == null ? "never" : lastSyncAt.toString());
+    }
+}
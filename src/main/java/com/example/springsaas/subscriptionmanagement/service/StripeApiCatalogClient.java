@@ -0,0 +1,48 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.payment.service.StripeGateway;
+import com.example.springsaas.subscriptionmanagement.dto.CatalogPrice;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Price;
+import com.stripe.model.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.Locale;
+
+@Component
+@RequiredArgsConstructor
+public class StripeApiCatalogClient implements StripeCatalogClient {
+
+    private final StripeGateway stripeGateway;
+
+    @Override
+    public CatalogPrice fetchPrice(SubscriptionPlan plan, String priceId) throws StripeException {
+        Price price = stripeGateway.retrievePrice(priceId);
+        if (price.getUnitAmount() == null) {
+            throw new IllegalStateException("Stripe price " + priceId + " has no unit amount (tiered or metered "
+                    + "billing); plans need a flat per-unit price");
+        }
+        Product product = price.getProductObject();
+        Currency currency = Currency.getInstance(price.getCurrency().toUpperCase(Locale.ROOT));
+
+        return new CatalogPrice(
+                plan,
+                price.getId(),
+                price.getProduct(),
+                product != null ? product.getName() : null,
+                BigDecimal.valueOf(price.getUnitAmount()).movePointLeft(minorUnitDigits(currency)),
+                currency.getCurrencyCode(),
+                Boolean.TRUE.equals(price.getActive())
+        );
+    }
+
+    // unit_amount is in the currency's minor unit: cents for USD, whole yen for JPY
+    private static int minorUnitDigits(Currency currency) {
+        int digits = currency.getDefaultFractionDigits();
+        return digits < 0 ? 2 : digits;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.subscriptionmanagement.dto.CatalogPrice;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.stripe.exception.StripeException;
+
+/**
+ * Source of price and product data for the local catalog snapshot.
+ */
+public interface StripeCatalogClient {
+
+    CatalogPrice fetchPrice(SubscriptionPlan plan, String priceId) throws StripeException;
+}
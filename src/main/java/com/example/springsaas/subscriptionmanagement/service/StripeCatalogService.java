@@ -0,0 +1,144 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.config.StripeCatalogProperties;
+import com.example.springsaas.subscriptionmanagement.dto.CatalogPrice;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves plan prices from an immutable in-memory snapshot of the Stripe catalog.
+ * The snapshot is swapped atomically on refresh, so lookups never block or hit the network;
+ * a plan whose price is not loaded fails fast. Until every configured price has loaded, a
+ * short-interval retry runs in the background.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StripeCatalogService implements MetricsSource {
+
+    private final StripeCatalogProperties properties;
+    private final StripeCatalogClient catalogClient;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.catalog.refresh-interval-ms:3600000}",
+            initialDelayString = "${stripe.catalog.refresh-interval-ms:3600000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.catalog.retry-interval-ms:30000}",
+            initialDelayString = "${stripe.catalog.retry-interval-ms:30000}")
+    public void retryUntilLoaded() {
+        if (!isComplete()) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reloads every configured price. A price that fails to load keeps its previous entry, if
+     * any, so one bad price never discards the others.
+     */
+    public synchronized void refresh() {
+        CatalogSnapshot previous = snapshot;
+        Map<SubscriptionPlan, CatalogPrice> byPlan = new EnumMap<>(SubscriptionPlan.class);
+        int failed = 0;
+        for (Map.Entry<SubscriptionPlan, String> entry : properties.getPrices().entrySet()) {
+            CatalogPrice price;
+            try {
+                price = catalogClient.fetchPrice(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                failed++;
+                price = previous.byPlan().get(entry.getKey());
+                log.error("Failed to load Stripe price {} for plan {}, keeping {}", entry.getValue(), entry.getKey(),
+                        price != null ? "the entry from " + previous.loadedAt() : "it unavailable", e);
+            }
+            if (price != null) {
+                byPlan.put(entry.getKey(), price);
+            }
+        }
+
+        Map<String, CatalogPrice> byPriceId = new HashMap<>();
+        byPlan.values().forEach(price -> byPriceId.put(price.priceId(), price));
+        snapshot = new CatalogSnapshot(Map.copyOf(byPlan), Map.copyOf(byPriceId), Instant.now());
+        if (failed > 0) {
+            refreshFailures.increment();
+        } else {
+            refreshes.increment();
+        }
+        log.info("Loaded Stripe catalog with {} prices ({} failed)", byPlan.size(), failed);
+    }
+
+    /**
+     * Whether every configured plan has a price in the snapshot.
+     */
+    public boolean isComplete() {
+        return snapshot.byPlan().keySet().containsAll(properties.getPrices().keySet());
+    }
+
+    public boolean isOffered(SubscriptionPlan plan) {
+        return properties.getPrices().containsKey(plan);
+    }
+
+    public CatalogPrice getPrice(SubscriptionPlan plan) {
+        CatalogPrice price = snapshot.byPlan().get(plan);
+        if (price == null) {
+            if (isOffered(plan)) {
+                // retryUntilLoaded() picks it up; never wait on Stripe on the request path
+                throw new IllegalStateException("Price of plan " + plan + " is not loaded yet");
+            }
+            throw new IllegalArgumentException("Invalid subscription plan: " + plan);
+        }
+        return price;
+    }
+
+    public Optional<CatalogPrice> findByPriceId(String priceId) {
+        return Optional.ofNullable(snapshot.byPriceId().get(priceId));
+    }
+
+    @Override
+    public String metricsName() {
+        return "stripe.catalog";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        CatalogSnapshot current = snapshot;
+        return Map.of(
+                "prices", current.byPlan().size(),
+                "loadedAt", String.valueOf(current.loadedAt()),
+                "complete", isComplete(),
+                "refreshes", refreshes.sum(),
+                "refreshFailures", refreshFailures.sum()
+        );
+    }
+
+    private record CatalogSnapshot(
+            Map<SubscriptionPlan, CatalogPrice> byPlan,
+            Map<String, CatalogPrice> byPriceId,
+            Instant loadedAt
+    ) {
+        static final CatalogSnapshot EMPTY = new CatalogSnapshot(Map.of(), Map.of(), null);
+    }
+}
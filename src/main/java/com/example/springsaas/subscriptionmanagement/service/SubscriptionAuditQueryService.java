@@ -0,0 +1,118 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditEntry;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditFilter;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditPage;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keyset-paginated reads over the partitioned audit table, newest first. The time window
+ * lets PostgreSQL prune partitions; the cursor encodes the last {@code (created_at, id)} seen.
+ */
+@Service
+@RequiredArgsConstructor
+public class SubscriptionAuditQueryService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final RowMapper<SubscriptionAuditEntry> ROW_MAPPER = (rs, rowNum) -> new SubscriptionAuditEntry(
+            rs.getLong("id"),
+            rs.getLong("user_id"),
+            SubscriptionPlan.valueOf(rs.getString("plan")),
+            rs.getString("stripe_session_id"),
+            rs.getString("status"),
+            rs.getString("error_message"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SubscriptionAuditPage page(SubscriptionAuditFilter filter, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<SubscriptionAuditEntry> items = fetch(filter, decode(cursor), pageSize);
+        String nextCursor = items.size() < pageSize ? null : encode(items.get(items.size() - 1));
+        return new SubscriptionAuditPage(items, nextCursor);
+    }
+
+    /**
+     * Feeds every matching entry to {@code sink}, one page at a time.
+     */
+    public void forEach(SubscriptionAuditFilter filter, Consumer<SubscriptionAuditEntry> sink) {
+        Position after = null;
+        List<SubscriptionAuditEntry> items;
+        do {
+            items = fetch(filter, after, MAX_PAGE_SIZE);
+            items.forEach(sink);
+            if (!items.isEmpty()) {
+                SubscriptionAuditEntry last = items.get(items.size() - 1);
+                after = new Position(last.createdAt(), last.id());
+            }
+        } while (items.size() == MAX_PAGE_SIZE);
+    }
+
+    private List<SubscriptionAuditEntry> fetch(SubscriptionAuditFilter filter, Position after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id, user_id, plan, stripe_session_id, status, error_message, created_at "
+                + "FROM subscription_audits WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (filter.userId() != null) {
+            sql.append(" AND user_id = ?");
+            args.add(filter.userId());
+        }
+        if (filter.plan() != null) {
+            sql.append(" AND plan = ?");
+            args.add(filter.plan().name());
+        }
+        if (filter.status() != null) {
+            sql.append(" AND status = ?");
+            args.add(filter.status());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND created_at >= ?");
+            args.add(Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.valueOf(filter.to()));
+        }
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    private static String encode(SubscriptionAuditEntry entry) {
+        String raw = entry.createdAt() + "|" + entry.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private record Position(LocalDateTime createdAt, long id) {
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.common.collection.MpscRingBuffer;
+import com.example.springsaas.common.metrics.MetricsSource;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind sink for subscription audit rows. Callers enqueue into a lock-free ring buffer
+ * and return immediately; a single flusher thread writes multi-row INSERTs when
+ * {@code batch-size} events are waiting or every {@code flush-interval-ms}. Events that
+ * cannot be written (buffer full, database down) are appended to a local journal file and
+ * replayed on the next successful flush and at startup. A replay first renames the journal to
+ * {@code <journal>.replaying}; a file left under that name by a crash is replayed before
+ * anything else and never overwritten. In {@code sync} mode every event is inserted on the
+ * calling thread.
+ */
+@Slf4j
+@Service
+public class SubscriptionAuditWriter implements MetricsSource {
+
+    private static final String INSERT_PREFIX = "INSERT INTO subscription_audits "
+            + "(id, user_id, plan, stripe_session_id, status, error_message, created_at, updated_at, version) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    // Hibernate's pooled optimizer: each nextval() v owns the ids (v - 50, v]
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MpscRingBuffer<SubscriptionAuditEvent> buffer;
+    private final boolean synchronous;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Path journal;
+    private final Path replaying;
+    // Guards the journal files only, so a request thread spilling to the journal never waits
+    // behind a database flush or replay, which hold the writer's monitor
+    private final Object journalLock = new Object();
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder journaled = new LongAdder();
+    private final AtomicLong lastFlushMicros = new AtomicLong();
+    private final AtomicLong maxFlushMicros = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public SubscriptionAuditWriter(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${app.audit.mode:async}") String mode,
+            @Value("${app.audit.buffer-capacity:8192}") int bufferCapacity,
+            @Value("${app.audit.batch-size:500}") int batchSize,
+            @Value("${app.audit.flush-interval-ms:1000}") long flushIntervalMillis,
+            @Value("${app.audit.journal-file:data/audit-journal.jsonl}") String journalFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.synchronous = "sync".equalsIgnoreCase(mode);
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.journal = Path.of(journalFile);
+        this.replaying = journal.resolveSibling(journal.getFileName() + ".replaying");
+    }
+
+    @PostConstruct
+    public void start() {
+        replayJournal();
+        if (!synchronous) {
+            flusher = new Thread(this::flushLoop, "audit-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    public void record(SubscriptionAuditEvent event) {
+        if (synchronous) {
+            insert(List.of(event));
+            written.increment();
+            return;
+        }
+        if (!buffer.offer(event)) {
+            log.warn("Audit buffer full, journaling event for user {}", event.userId());
+            appendToJournal(List.of(event));
+            return;
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    /**
+     * Records {@code event} once the surrounding transaction commits, so a rolled-back change
+     * leaves no audit row claiming it happened. Without a transaction it is recorded now.
+     */
+    public void recordAfterCommit(SubscriptionAuditEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(event);
+            }
+        });
+    }
+
+    private void flushLoop() {
+        while (running) {
+            if (buffer.size() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+    }
+
+    private synchronized void flush() {
+        boolean wrote = false;
+        while (buffer.size() > 0) {
+            List<SubscriptionAuditEvent> batch = new ArrayList<>(Math.min(buffer.size(), batchSize));
+            buffer.drain(batch::add, batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                insert(batch);
+                wrote = true;
+                written.add(batch.size());
+                flushes.increment();
+                long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                lastFlushMicros.set(micros);
+                maxFlushMicros.accumulateAndGet(micros, Math::max);
+            } catch (RuntimeException e) {
+                log.error("Failed to write {} audit events, journaling them", batch.size(), e);
+                appendToJournal(batch);
+                return;
+            }
+        }
+        // The database is reachable again, so catch up on anything spilled earlier
+        if (wrote && (Files.exists(replaying) || Files.exists(journal))) {
+            replayJournal();
+        }
+    }
+
+    private void insert(List<SubscriptionAuditEvent> events) {
+        int blocks = (events.size() + SEQUENCE_INCREMENT - 1) / SEQUENCE_INCREMENT;
+        List<Long> highs = jdbcTemplate.queryForList(
+                "SELECT nextval('subscription_audit_seq') FROM generate_series(1, ?)", Long.class, blocks);
+
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        List<Object> args = new ArrayList<>(events.size() * 8);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < events.size(); i++) {
+            SubscriptionAuditEvent event = events.get(i);
+            long id = highs.get(i / SEQUENCE_INCREMENT) - SEQUENCE_INCREMENT + 1 + i % SEQUENCE_INCREMENT;
+            sql.append(i == 0 ? ROW : ", " + ROW);
+            args.add(id);
+            args.add(event.userId());
+            args.add(event.plan().name());
+            args.add(event.stripeSessionId());
+            args.add(event.status());
+            args.add(event.errorMessage());
+            args.add(Timestamp.valueOf(event.createdAt()));
+            args.add(now);
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private void appendToJournal(List<SubscriptionAuditEvent> events) {
+        synchronized (journalLock) {
+            try {
+                if (journal.getParent() != null) {
+                    Files.createDirectories(journal.getParent());
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(journal, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC)) {
+                    for (SubscriptionAuditEvent event : events) {
+                        writer.write(objectMapper.writeValueAsString(event));
+                        writer.newLine();
+                    }
+                }
+                journaled.add(events.size());
+            } catch (IOException e) {
+                log.error("Failed to journal {} audit events; they are lost: {}", events.size(), events, e);
+            }
+        }
+    }
+
+    private synchronized void replayJournal() {
+        try {
+            // Leftover from a replay that crashed: replay it before taking the current journal
+            if (Files.exists(replaying)) {
+                replay(replaying);
+            }
+            if (takeJournal()) {
+                replay(replaying);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Kept for the next attempt; a partial replay may leave duplicates, never gaps
+            log.error("Failed to replay audit journal {}", replaying, e);
+        }
+    }
+
+    /**
+     * Moves the journal to the replay name, so new spills start a fresh journal.
+     *
+     * @return {@code false} if there was no journal
+     */
+    private boolean takeJournal() throws IOException {
+        synchronized (journalLock) {
+            if (!Files.exists(journal)) {
+                return false;
+            }
+            // No REPLACE_EXISTING: an unreplayed file must never be overwritten
+            Files.move(journal, replaying, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+    }
+
+    private void replay(Path file) throws IOException {
+        List<SubscriptionAuditEvent> events = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                events.add(objectMapper.readValue(line, SubscriptionAuditEvent.class));
+            }
+        }
+        for (int from = 0; from < events.size(); from += batchSize) {
+            insert(events.subList(from, Math.min(events.size(), from + batchSize)));
+        }
+        Files.delete(file);
+        log.info("Replayed {} journaled audit events", events.size());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        flush();
+    }
+
+    @Override
+    public String metricsName() {
+        return "subscription.audit";
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        return Map.of(
+                "mode", synchronous ? "sync" : "async",
+                "bufferDepth", buffer.size(),
+                "bufferCapacity", buffer.capacity(),
+                "written", written.sum(),
+                "flushes", flushes.sum(),
+                "journaled", journaled.sum(),
+                "lastFlushMs", lastFlushMicros.get() / 1000.0,
+                "maxFlushMs", maxFlushMicros.get() / 1000.0);
+    }
+}
@@ -2,63 +2,57 @@ package com.example.springsaas.subscriptionmanagement.service;
 
 import com.example.springsaas.authentication.entity.User;
 import com.example.springsaas.authentication.repository.UserRepository;
+import com.example.springsaas.payment.service.StripeGateway;
+import com.example.springsaas.security.AuthenticatedUser;
+import com.example.springsaas.subscriptionmanagement.dto.CatalogPrice;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditEvent;
 import com.example.springsaas.subscriptionmanagement.dto.SubscriptionRequest;
 import com.example.springsaas.subscriptionmanagement.dto.SubscriptionResponse;
 import com.example.springsaas.subscriptionmanagement.entity.Subscription;
-import com.example.springsaas.subscriptionmanagement.entity.SubscriptionAudit;
 import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
-import com.example.springsaas.subscriptionmanagement.repository.SubscriptionAuditRepository;
 import com.example.springsaas.subscriptionmanagement.repository.SubscriptionRepository;
-import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.Customer;
-import com.stripe.model.Price;
 import com.stripe.model.SubscriptionItem;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal; 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.UUID;
 import com.stripe.param.SubscriptionUpdateParams;
 
 
+/**
+ * Stripe calls go through {@link StripeGateway} and never run inside a database transaction;
+ * the local writes that follow them run in short transactions of their own.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SubscriptionService {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final SubscriptionRepository subscriptionRepository;
-    private final SubscriptionAuditRepository auditRepository;
+    private final SubscriptionAuditWriter auditWriter;
     private final UserRepository userRepository;
+    private final StripeCatalogService catalogService;
+    private final ActiveSubscriptionCache activeSubscriptionCache;
+    private final EntitlementService entitlementService;
+    private final StripeGateway stripeGateway;
+    private final TransactionTemplate transactionTemplate;
 
-    @Value("${stripe.api.key}")
-    private String stripeApiKey;
-
-    private final Map<Subscription.SubscriptionPlan, String> PLAN_PRICE_IDS = Map.of(
-            Subscription.SubscriptionPlan.BASIC, "price_1QsqFcPTJe3xQo0CAz3WS0Eo",
-            Subscription.SubscriptionPlan.PREMIUM, "price_1Quu9MPTJe3xQo0Cxapa2qOI",
-            Subscription.SubscriptionPlan.ENTERPRISE, "price_1QuuATPTJe3xQo0CFEaFfGKF"
-    );
-
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeApiKey;
-    }
-
-    @Transactional
     public Map<String, String> createCheckoutSession(SubscriptionRequest request) throws StripeException {
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        User user = currentUser();
         log.info("Creating checkout session for user: {} with plan: {}", user.getEmail(), request.getPlan());
 
         try {
@@ -69,17 +63,15 @@ public class SubscriptionService {
             String stripeCustomerId = getOrCreateStripeCustomer(user);
 
             // Get price details for the subscription
-            Price price = Price.retrieve(PLAN_PRICE_IDS.get(request.getPlan()));
+            CatalogPrice price = catalogService.getPrice(request.getPlan());
 
             // Create Checkout Session
-            Map<String, Object> params = new HashMap<>();
-            params.put("customer", stripeCustomerId);
-            params.put("line_items", List.of(Map.of("price", PLAN_PRICE_IDS.get(request.getPlan()), "quantity", 1)));
-            params.put("mode", "subscription");
-            params.put("success_url", "http://localhost:4200/dashboard/subscription/success?session_id={CHECKOUT_SESSION_ID}");
-            params.put("cancel_url", "http://localhost:4200/dashboard/subscription/cancel");
-
-            com.stripe.model.checkout.Session session = com.stripe.model.checkout.Session.create(params);
+            com.stripe.model.checkout.Session session = stripeGateway.createCheckoutSession(
+                    stripeCustomerId,
+                    price.priceId(),
+                    "http://localhost:4200/dashboard/subscription/success?session_id={CHECKOUT_SESSION_ID}",
+                    "http://localhost:4200/dashboard/subscription/cancel",
+                    UUID.randomUUID().toString());
             log.info("Checkout session created successfully for user: {} with sessionId: {}", user.getEmail(), session.getId());
 
             // Create initial subscription record (PENDING status)
@@ -87,8 +79,8 @@ public class SubscriptionService {
             subscription.setUser(user);
             subscription.setPlan(request.getPlan());
             subscription.setStatus(SubscriptionStatus.PENDING);
-            subscription.setAmount(BigDecimal.valueOf(price.getUnitAmount() / 100.0));
-            subscription.setCurrency(price.getCurrency().toUpperCase());
+            subscription.setAmount(price.amount());
+            subscription.setCurrency(price.currency());
             subscription.setStripeCustomerId(stripeCustomerId);
             
             // Set initial period dates
@@ -97,7 +89,7 @@ public class SubscriptionService {
             subscription.setCurrentPeriodEnd(now.plusMonths(1));
             
             // Save the subscription first to ensure it exists
-            Subscription savedSubscription = subscriptionRepository.save(subscription);
+            Subscription savedSubscription = transactionTemplate.execute(status -> subscriptionRepository.save(subscription));
             log.info("Created initial subscription record with id: {} for user: {}", savedSubscription.getId(), user.getEmail());
 
             // Create audit record
@@ -118,35 +110,29 @@ public class SubscriptionService {
         }
     }
 
-    public List<SubscriptionResponse> getUserSubscriptions() {
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        return subscriptionRepository.findAllByUser(user)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    public List<SubscriptionResponse> getUserSubscriptions(Long beforeId, Integer limit) {
+        return getUserSubscriptionsByUserId(AuthenticatedUser.current().getId(), beforeId, limit);
     }
 
-    public List<SubscriptionResponse> getUserSubscriptionsByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-                
-        return subscriptionRepository.findAllByUser(user)
-                .stream()
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Lists a user's subscriptions newest first. Pass the last id of a page as {@code beforeId}
+     * to fetch the next one; without a {@code limit} the whole history is returned.
+     */
+    public List<SubscriptionResponse> getUserSubscriptionsByUserId(Long userId, Long beforeId, Integer limit) {
+        return subscriptionRepository.findResponsesByUserId(
+                userId,
+                beforeId != null ? beforeId : Long.MAX_VALUE,
+                limit != null ? PageRequest.of(0, Math.min(limit, MAX_PAGE_SIZE)) : Pageable.unpaged());
     }
 
     public SubscriptionResponse getUserActiveSubscription(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-                
-        return subscriptionRepository.findByUserAndStatus(user, SubscriptionStatus.ACTIVE)
-                .map(this::mapToResponse)
+        return activeSubscriptionCache.get(userId,
+                        () -> subscriptionRepository.findResponseByUserIdAndStatus(userId, SubscriptionStatus.ACTIVE))
                 .orElse(null);
     }
 
     private void validateSubscriptionRequest(User user, SubscriptionRequest request) {
-        if (!PLAN_PRICE_IDS.containsKey(request.getPlan())) {
+        if (!catalogService.isOffered(request.getPlan())) {
             log.error("Invalid subscription plan requested: {}", request.getPlan());
             throw new IllegalArgumentException("Invalid subscription plan");
         }
@@ -165,45 +151,73 @@ public class SubscriptionService {
     private String getOrCreateStripeCustomer(User user) throws StripeException {
         String stripeCustomerId = user.getStripeCustomerId();
         if (stripeCustomerId == null) {
-            Map<String, Object> customerParams = new HashMap<>();
-            customerParams.put("email", user.getEmail());
-            customerParams.put("name", user.getFirstName() + " " + user.getLastName());
-            Customer customer = Customer.create(customerParams);
-            stripeCustomerId = customer.getId();
+            // Keyed by user, so concurrent first checkouts end up with the same Stripe customer
+            Customer customer = stripeGateway.createCustomer(
+                    user.getEmail(),
+                    user.getFirstName() + " " + user.getLastName(),
+                    "customer-user-" + user.getId());
+            stripeCustomerId = transactionTemplate.execute(status -> {
+                User current = userRepository.findById(user.getId())
+                        .orElseThrow(() -> new IllegalStateException("User no longer exists: " + user.getId()));
+                if (current.getStripeCustomerId() == null) {
+                    current.setStripeCustomerId(customer.getId());
+                    userRepository.save(current);
+                }
+                return current.getStripeCustomerId();
+            });
             user.setStripeCustomerId(stripeCustomerId);
-            userRepository.save(user);
             log.info("Created new Stripe customer for user: {}", user.getEmail());
         }
         return stripeCustomerId;
     }
 
+    private User currentUser() {
+        return userRepository.findById(AuthenticatedUser.current().getId())
+                .orElseThrow(() -> new IllegalStateException("Authenticated user no longer exists"));
+    }
+
     private void createAuditRecord(User user, Subscription.SubscriptionPlan plan, String sessionId, String status, String errorMessage) {
-        SubscriptionAudit audit = new SubscriptionAudit();
-        audit.setUser(user);
-        audit.setPlan(plan);
-        audit.setStripeSessionId(sessionId);
-        audit.setStatus(status);
-        audit.setErrorMessage(errorMessage);
-        auditRepository.save(audit);
+        auditWriter.record(new SubscriptionAuditEvent(user.getId(), plan, sessionId, status, errorMessage, LocalDateTime.now()));
     }
 
-    private SubscriptionResponse mapToResponse(Subscription subscription) {
-        return SubscriptionResponse.builder()
-                .id(subscription.getId())
-                .userId(subscription.getUser().getId())
-                .plan(subscription.getPlan())
-                .status(subscription.getStatus())
-                .amount(subscription.getAmount())
-                .currency(subscription.getCurrency())
-                .currentPeriodStart(subscription.getCurrentPeriodStart())
-                .currentPeriodEnd(subscription.getCurrentPeriodEnd())
-                .stripeSubscriptionId(subscription.getStripeSubscriptionId())
-                .canceledAt(subscription.getCanceledAt())
-                .cancelReason(subscription.getCancelReason())
-                .build();
+    // For changes made inside a transaction: the audit is only written if the change commits
+    private void createAuditRecordAfterCommit(Long userId, Subscription.SubscriptionPlan plan, String reference, String status) {
+        auditWriter.recordAfterCommit(new SubscriptionAuditEvent(userId, plan, reference, status, null, LocalDateTime.now()));
+    }
+
+    /**
+     * Marks a pending subscription active with the periods from Stripe. Returns {@code false} if
+     * another request activated it in the meantime.
+     */
+    private boolean activatePending(Long subscriptionId, com.stripe.model.Subscription stripeSubscription, String sessionId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            Subscription subscription = subscriptionRepository.findById(subscriptionId)
+                    .orElseThrow(() -> new RuntimeException("Subscription not found: " + subscriptionId));
+            if (subscription.getStatus() != SubscriptionStatus.PENDING) {
+                return false;
+            }
+            subscription.setStatus(SubscriptionStatus.ACTIVE);
+            subscription.setStripeSubscriptionId(stripeSubscription.getId());
+            subscription.setCurrentPeriodStart(LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(stripeSubscription.getCurrentPeriodStart()),
+                    ZoneId.systemDefault()));
+            subscription.setCurrentPeriodEnd(LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(stripeSubscription.getCurrentPeriodEnd()),
+                    ZoneId.systemDefault()));
+            subscriptionRepository.save(subscription);
+            subscriptionChanged(subscription);
+            createAuditRecordAfterCommit(subscription.getUser().getId(), subscription.getPlan(), sessionId,
+                    "SUBSCRIPTION_ACTIVATED");
+            return true;
+        }));
+    }
+
+    private void subscriptionChanged(Subscription subscription) {
+        Long userId = subscription.getUser().getId();
+        activeSubscriptionCache.invalidateAfterCommit(userId);
+        entitlementService.applyAfterCommit(userId, subscription.getPlan(), subscription.getStatus());
     }
 
-    @Transactional
     public void handleCheckoutSessionCompleted(com.stripe.model.checkout.Session session) {
         log.info("Handling checkout session completed: {}", session.getId());
         String stripeCustomerId = session.getCustomer();
@@ -216,6 +230,14 @@ public class SubscriptionService {
                     return new RuntimeException("User not found for customer: " + stripeCustomerId);
                 });
         
+        // Already activated, e.g. through activateSubscription() before the webhook arrived
+        if (stripeSubscriptionId != null && subscriptionRepository.findByStripeSubscriptionId(stripeSubscriptionId)
+                .filter(existing -> existing.getStatus() == SubscriptionStatus.ACTIVE)
+                .isPresent()) {
+            log.info("Subscription {} already active, skipping checkout session: {}", stripeSubscriptionId, session.getId());
+            return;
+        }
+
         log.debug("Looking up pending subscription for user: {}", user.getEmail());
         Subscription subscription = subscriptionRepository.findByUserAndStatus(user, SubscriptionStatus.PENDING)
                 .orElseThrow(() -> {
@@ -223,31 +245,22 @@ public class SubscriptionService {
                     return new RuntimeException("No pending subscription found for user: " + user.getEmail());
                 });
         
+        com.stripe.model.Subscription stripeSubscription;
         try {
             log.debug("Retrieving Stripe subscription: {}", stripeSubscriptionId);
-            com.stripe.model.Subscription stripeSubscription = com.stripe.model.Subscription.retrieve(stripeSubscriptionId);
-            
-            subscription.setStatus(SubscriptionStatus.ACTIVE);
-            subscription.setStripeSubscriptionId(stripeSubscriptionId);
-            subscription.setCurrentPeriodStart(LocalDateTime.ofInstant(
-                    Instant.ofEpochSecond(stripeSubscription.getCurrentPeriodStart()), 
-                    ZoneId.systemDefault()));
-            subscription.setCurrentPeriodEnd(LocalDateTime.ofInstant(
-                    Instant.ofEpochSecond(stripeSubscription.getCurrentPeriodEnd()), 
-                    ZoneId.systemDefault()));
-            
-            Subscription savedSubscription = subscriptionRepository.save(subscription);
-            log.info("Subscription activated: {} for user: {}", savedSubscription.getId(), user.getEmail());
-            
-            // Create audit record for successful subscription
-            createAuditRecord(user, subscription.getPlan(), session.getId(), "SUBSCRIPTION_ACTIVATED", null);
-            
+            stripeSubscription = stripeGateway.retrieveSubscription(stripeSubscriptionId);
         } catch (StripeException e) {
             String errorMessage = "Error retrieving Stripe subscription: " + e.getMessage();
             log.error(errorMessage, e);
             createAuditRecord(user, subscription.getPlan(), session.getId(), "ACTIVATION_FAILED", errorMessage);
             throw new RuntimeException("Error activating subscription", e);
         }
+
+        if (!activatePending(subscription.getId(), stripeSubscription, session.getId())) {
+            log.info("Subscription {} already activated, skipping checkout session: {}", subscription.getId(), session.getId());
+            return;
+        }
+        log.info("Subscription activated: {} for user: {}", subscription.getId(), user.getEmail());
     }
 
     @Transactional
@@ -280,6 +293,7 @@ public class SubscriptionService {
         }
         
         Subscription savedSubscription = subscriptionRepository.save(subscription);
+        subscriptionChanged(subscription);
         log.info("Subscription updated: {} with status: {}", savedSubscription.getId(), savedSubscription.getStatus());
     }
 
@@ -294,15 +308,15 @@ public class SubscriptionService {
         subscription.setCancelReason("Canceled via Stripe");
         
         subscriptionRepository.save(subscription);
+        subscriptionChanged(subscription);
         log.info("Subscription canceled: {}", subscription.getId());
     }
 
-    @Transactional
     public void activateSubscription(String sessionId) throws StripeException {
         log.info("Activating subscription for session: {}", sessionId);
         
         // Retrieve the session from Stripe
-        com.stripe.model.checkout.Session session = com.stripe.model.checkout.Session.retrieve(sessionId);
+        com.stripe.model.checkout.Session session = stripeGateway.retrieveCheckoutSession(sessionId);
         
         if (!"complete".equals(session.getStatus())) {
             throw new RuntimeException("Checkout session is not complete");
@@ -320,40 +334,26 @@ public class SubscriptionService {
                 .orElseThrow(() -> new RuntimeException("No pending subscription found for user: " + user.getEmail()));
         
         // Retrieve subscription details from Stripe
-        com.stripe.model.Subscription stripeSubscription = com.stripe.model.Subscription.retrieve(stripeSubscriptionId);
+        com.stripe.model.Subscription stripeSubscription = stripeGateway.retrieveSubscription(stripeSubscriptionId);
         
         // Update subscription status
-        subscription.setStatus(SubscriptionStatus.ACTIVE);
-        subscription.setStripeSubscriptionId(stripeSubscriptionId);
-        subscription.setCurrentPeriodStart(LocalDateTime.ofInstant(
-                Instant.ofEpochSecond(stripeSubscription.getCurrentPeriodStart()), 
-                ZoneId.systemDefault()));
-        subscription.setCurrentPeriodEnd(LocalDateTime.ofInstant(
-                Instant.ofEpochSecond(stripeSubscription.getCurrentPeriodEnd()), 
-                ZoneId.systemDefault()));
-        
-        subscriptionRepository.save(subscription);
+        if (!activatePending(subscription.getId(), stripeSubscription, sessionId)) {
+            log.info("Subscription {} already activated by the webhook", subscription.getId());
+            return;
+        }
         log.info("Subscription activated: {} for user: {}", subscription.getId(), user.getEmail());
-        
-        // Create audit record
-        createAuditRecord(user, subscription.getPlan(), sessionId, "SUBSCRIPTION_ACTIVATED", null);
     }
 
-    @Transactional
     public Map<String, String> createCustomerPortalSession() throws StripeException {
-        User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        User user = currentUser();
         log.info("Creating customer portal session for user: {}", user.getEmail());
 
         try {
             // Ensure user has a Stripe customer ID
             String stripeCustomerId = getOrCreateStripeCustomer(user);
 
-            Map<String, Object> params = new HashMap<>();
-            params.put("customer", stripeCustomerId);
-            params.put("return_url", "http://localhost:4200/dashboard/subscriptions");
-
-            com.stripe.model.billingportal.Session portalSession = 
-                com.stripe.model.billingportal.Session.create(params);
+            com.stripe.model.billingportal.Session portalSession = stripeGateway.createPortalSession(
+                    stripeCustomerId, "http://localhost:4200/dashboard/subscriptions");
 
             log.info("Customer portal session created successfully for user: {}", user.getEmail());
 
@@ -367,7 +367,6 @@ public class SubscriptionService {
         }
     }
 
-    @Transactional
     public void changeSubscriptionPlan(Long userId, Subscription.SubscriptionPlan newPlan) throws StripeException {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -380,13 +379,14 @@ public class SubscriptionService {
             throw new RuntimeException("No Stripe subscription ID found for user: " + user.getEmail());
         }
 
-        String newPriceId = PLAN_PRICE_IDS.get(newPlan);
-        if (newPriceId == null) {
+        if (!catalogService.isOffered(newPlan)) {
             throw new IllegalArgumentException("Invalid subscription plan: " + newPlan);
         }
+        CatalogPrice newPrice = catalogService.getPrice(newPlan);
+        String newPriceId = newPrice.priceId();
 
         // Retrieve the existing subscription from Stripe
-        com.stripe.model.Subscription stripeSubscription = com.stripe.model.Subscription.retrieve(stripeSubscriptionId);
+        com.stripe.model.Subscription stripeSubscription = stripeGateway.retrieveSubscription(stripeSubscriptionId);
 
         // Find the existing subscription item
         SubscriptionItem existingItem = stripeSubscription.getItems().getData().stream()
@@ -402,20 +402,23 @@ public class SubscriptionService {
                         .build())
                 .build();
 
-        stripeSubscription.update(updateParams);
-
-        com.stripe.model.Price newPrice = com.stripe.model.Price.retrieve(newPriceId);
+        // Keyed by the subscription's version, so a resubmitted change updates Stripe only once
+        stripeGateway.updateSubscription(stripeSubscriptionId, updateParams,
+                "plan-change-" + subscription.getId() + "-" + subscription.getVersion() + "-" + newPriceId);
 
         // Update the local subscription record
-        subscription.setPlan(newPlan);
-        subscription.setAmount(BigDecimal.valueOf(newPrice.getUnitAmount() / 100.0));
-        subscription.setCurrency(newPrice.getCurrency().toUpperCase());
-        subscriptionRepository.save(subscription);
+        transactionTemplate.executeWithoutResult(status -> {
+            Subscription current = subscriptionRepository.findById(subscription.getId())
+                    .orElseThrow(() -> new RuntimeException("Subscription not found: " + subscription.getId()));
+            current.setPlan(newPlan);
+            current.setAmount(newPrice.amount());
+            current.setCurrency(newPrice.currency());
+            subscriptionRepository.save(current);
+            subscriptionChanged(current);
+            createAuditRecordAfterCommit(user.getId(), newPlan, stripeSubscriptionId, "PLAN_CHANGED");
+        });
 
         log.info("Subscription plan changed to {} for user: {}", newPlan, user.getEmail());
-
-        // Create audit record for the plan change
-        createAuditRecord(user, newPlan, stripeSubscriptionId, "PLAN_CHANGED", null);
     }
 
     
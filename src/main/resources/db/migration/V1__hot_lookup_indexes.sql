@@ -0,0 +1,48 @@
+-- Indexes for the lookup columns used by the repositories.
+-- Partial indexes skip the NULL / inactive majority of rows.
+
+-- users
+CREATE INDEX IF NOT EXISTS idx_users_stripe_customer_id
+    ON users (stripe_customer_id) WHERE stripe_customer_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_users_verification_token
+    ON users (verification_token) WHERE verification_token IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_users_reset_password_token
+    ON users (reset_password_token) WHERE reset_password_token IS NOT NULL;
+
+-- subscriptions
+CREATE INDEX IF NOT EXISTS idx_subscriptions_user_status
+    ON subscriptions (user_id, status);
+CREATE INDEX IF NOT EXISTS idx_subscriptions_user_id_desc
+    ON subscriptions (user_id, id DESC);
+CREATE INDEX IF NOT EXISTS idx_subscriptions_active_user
+    ON subscriptions (user_id) WHERE status = 'ACTIVE';
+CREATE INDEX IF NOT EXISTS idx_subscriptions_stripe_subscription_id
+    ON subscriptions (stripe_subscription_id) WHERE stripe_subscription_id IS NOT NULL;
+CREATE INDEX IF NOT EXISTS idx_subscriptions_status_period_end
+    ON subscriptions (status, current_period_end);
+CREATE INDEX IF NOT EXISTS idx_subscriptions_updated_at
+    ON subscriptions (updated_at);
+
+-- invoices
+CREATE INDEX IF NOT EXISTS idx_invoices_user_status
+    ON invoices (user_id, status);
+CREATE INDEX IF NOT EXISTS idx_invoices_payment_id
+    ON invoices (payment_id);
+CREATE INDEX IF NOT EXISTS idx_invoices_invoice_number
+    ON invoices (invoice_number);
+CREATE INDEX IF NOT EXISTS idx_invoices_status_due_date
+    ON invoices (status, due_date);
+CREATE INDEX IF NOT EXISTS idx_invoices_sent_due_date
+    ON invoices (due_date) WHERE status = 'SENT';
+CREATE INDEX IF NOT EXISTS idx_invoices_unsent_status_id
+    ON invoices (status, id) WHERE email_sent = false;
+
+-- payments
+CREATE INDEX IF NOT EXISTS idx_payments_user_status
+    ON payments (user_id, status);
+CREATE INDEX IF NOT EXISTS idx_payments_subscription_id
+    ON payments (subscription_id);
+CREATE INDEX IF NOT EXISTS idx_payments_stripe_payment_intent_id
+    ON payments (stripe_payment_intent_id);
+CREATE INDEX IF NOT EXISTS idx_payments_status_created_at
+    ON payments (status, created_at);
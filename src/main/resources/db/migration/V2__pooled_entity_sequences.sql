@@ -0,0 +1,39 @@
+-- Entity ids move from IDENTITY columns to per-entity sequences allocated in blocks of 50
+-- (Hibernate's pooled optimizer). Hibernate's ddl update creates missing sequences starting
+-- at 1, so existing tables need their sequence moved past the current max(id).
+DO $$
+DECLARE
+    mapping text[] := ARRAY[
+        'users',                   'user_seq',
+        'subscriptions',           'subscription_seq',
+        'subscription_audits',     'subscription_audit_seq',
+        'payments',                'payment_seq',
+        'invoices',                'invoice_seq',
+        'invoice_run_checkpoints', 'invoice_run_checkpoint_seq',
+        'webhook_inbox_events',    'webhook_inbox_event_seq',
+        'email_outbox',            'email_outbox_message_seq',
+        'job_runs',                'job_run_seq'
+    ];
+    table_name    text;
+    sequence_name text;
+    max_id        bigint;
+BEGIN
+    FOR i IN 1 .. array_length(mapping, 1) BY 2 LOOP
+        table_name := mapping[i];
+        sequence_name := mapping[i + 1];
+        CONTINUE WHEN to_regclass(table_name) IS NULL;
+
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I START WITH 1 INCREMENT BY 50', sequence_name);
+
+        IF EXISTS (SELECT 1 FROM information_schema.columns c
+                    WHERE c.table_name = mapping[i] AND c.column_name = 'id' AND c.is_identity = 'YES') THEN
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', table_name);
+        END IF;
+
+        EXECUTE format('SELECT COALESCE(MAX(id), 0) FROM %I', table_name) INTO max_id;
+        IF max_id > 0 THEN
+            -- the next nextval() returns max_id + 50 and the pooled optimizer hands out (max_id, max_id + 50]
+            PERFORM setval(sequence_name, max_id);
+        END IF;
+    END LOOP;
+END $$;
@@ -0,0 +1,2 @@
+-- Failed checkouts are audited before a Stripe session exists
+ALTER TABLE subscription_audits ALTER COLUMN stripe_session_id DROP NOT NULL;
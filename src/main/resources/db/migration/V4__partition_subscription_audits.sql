@@ -0,0 +1,40 @@
+-- Turn subscription_audits into a table range-partitioned by month on created_at.
+-- AuditPartitionMaintainer creates upcoming partitions and drops expired ones; the default
+-- partition only catches rows that arrive before their month exists.
+DO $$
+DECLARE
+    month_start date;
+    last_month  date;
+BEGIN
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass('subscription_audits')) <> 'r' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE subscription_audits RENAME TO subscription_audits_legacy;
+
+    CREATE TABLE subscription_audits (LIKE subscription_audits_legacy INCLUDING DEFAULTS)
+        PARTITION BY RANGE (created_at);
+    ALTER TABLE subscription_audits ADD PRIMARY KEY (id, created_at);
+    ALTER TABLE subscription_audits
+        ADD CONSTRAINT fk_subscription_audits_user FOREIGN KEY (user_id) REFERENCES users (id);
+    CREATE TABLE subscription_audits_default PARTITION OF subscription_audits DEFAULT;
+
+    SELECT date_trunc('month', COALESCE(MIN(created_at), now()))::date INTO month_start
+      FROM subscription_audits_legacy;
+    last_month := (date_trunc('month', now()) + interval '3 months')::date;
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF subscription_audits FOR VALUES FROM (%L) TO (%L)',
+                       'subscription_audits_' || to_char(month_start, 'YYYY_MM'),
+                       month_start, (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+
+    INSERT INTO subscription_audits SELECT * FROM subscription_audits_legacy;
+    DROP TABLE subscription_audits_legacy;
+END $$;
+
+-- Keyset order of the admin query API, per user and overall
+CREATE INDEX IF NOT EXISTS idx_subscription_audits_user_created
+    ON subscription_audits (user_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_subscription_audits_created
+    ON subscription_audits (created_at DESC, id DESC);
@@ -0,0 +1,24 @@
+-- Roles move from the user_roles collection table into users.role_mask (bits as in Role).
+-- Hibernate has already added role_mask with default 0; fresh databases have no user_roles.
+DO $$
+BEGIN
+    IF to_regclass('user_roles') IS NULL THEN
+        RETURN;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM user_roles WHERE role NOT IN ('ROLE_USER', 'ROLE_ADMIN')) THEN
+        RAISE EXCEPTION 'user_roles contains roles without a bit in Role: %',
+            (SELECT string_agg(DISTINCT role, ', ') FROM user_roles WHERE role NOT IN ('ROLE_USER', 'ROLE_ADMIN'));
+    END IF;
+
+    UPDATE users u
+    SET role_mask = r.mask
+    FROM (SELECT user_id,
+                 bit_or(CASE role WHEN 'ROLE_USER' THEN 1 WHEN 'ROLE_ADMIN' THEN 2 END) AS mask
+          FROM user_roles
+          GROUP BY user_id) r
+    WHERE u.id = r.user_id;
+
+    DROP TABLE user_roles;
+END
+$$;
@@ -0,0 +1,5 @@
+-- Serves the per-customer head-of-queue check in WebhookInboxEventRepository.claimPending.
+-- Hibernate has already added next_attempt_at (default now) to existing rows.
+CREATE INDEX IF NOT EXISTS idx_webhook_inbox_customer_open
+    ON webhook_inbox_events (stripe_customer_id, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
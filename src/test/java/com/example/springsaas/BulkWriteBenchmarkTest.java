@@ -0,0 +1,226 @@
+package com.example.springsaas;
+
+import com.example.springsaas.authentication.entity.User;
+import com.example.springsaas.authentication.repository.UserRepository;
+import com.example.springsaas.invoice.entity.Invoice;
+import com.example.springsaas.invoice.repository.InvoiceRepository;
+import com.example.springsaas.invoice.service.InvoiceService;
+import com.example.springsaas.payment.entity.Payment;
+import com.example.springsaas.payment.entity.Payment.PaymentStatus;
+import com.example.springsaas.payment.repository.PaymentRepository;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditEvent;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
+import com.example.springsaas.subscriptionmanagement.entity.SubscriptionAudit;
+import com.example.springsaas.subscriptionmanagement.repository.SubscriptionAuditRepository;
+import com.example.springsaas.subscriptionmanagement.repository.SubscriptionRepository;
+import com.example.springsaas.subscriptionmanagement.service.SubscriptionAuditWriter;
+import com.example.springsaas.support.MicroBenchmark;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures bulk invoice generation and audit writes against a real PostgreSQL database:
+ * row-by-row inserts ({@code hibernate.jdbc.batch_size} forced to 1, the behaviour under
+ * IDENTITY ids) versus the configured sequence-backed batching, and the write-behind audit
+ * writer end to end.
+ *
+ * <p>Needs a disposable database and {@code RUN_BENCHMARKS=true}:
+ * {@code RUN_BENCHMARKS=true TEST_DATABASE_URL=jdbc:postgresql://localhost/bench mvn test -Dtest=BulkWriteBenchmarkTest}
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE_URL", matches = ".+")
+@EnabledIfEnvironmentVariable(named = MicroBenchmark.ENABLED_VARIABLE, matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${TEST_DATABASE_URL}",
+        "spring.datasource.username=${TEST_DATABASE_USERNAME:postgres}",
+        "spring.datasource.password=${TEST_DATABASE_PASSWORD:postgres}",
+        "jwt.signing.generate-dev-key=true",
+        "spring.jpa.show-sql=false",
+        "app.audit.journal-file=target/benchmark-audit-journal.jsonl"
+})
+@ActiveProfiles("stripe-stub")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkWriteBenchmarkTest {
+
+    private static final int ROWS = 5_000;
+    private static final int ROUNDS = 3;
+    private static final int ROW_BY_ROW = 1;
+    private static final int BATCHED = 50;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private InvoiceService invoiceService;
+    @Autowired
+    private SubscriptionAuditRepository auditRepository;
+    @Autowired
+    private SubscriptionAuditWriter auditWriter;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private User user;
+    private Subscription subscription;
+
+    @BeforeAll
+    void seed() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        String runId = Long.toString(System.nanoTime(), 36);
+
+        User seeded = new User("Bench", "User", "bench-" + runId + "@example.com", "x");
+        user = userRepository.save(seeded);
+
+        Subscription seededSubscription = new Subscription();
+        seededSubscription.setUser(user);
+        seededSubscription.setPlan(SubscriptionPlan.values()[0]);
+        seededSubscription.setStatus(SubscriptionStatus.ACTIVE);
+        seededSubscription.setAmount(BigDecimal.TEN);
+        seededSubscription.setCurrentPeriodStart(LocalDateTime.now().minusMonths(1));
+        seededSubscription.setCurrentPeriodEnd(LocalDateTime.now());
+        seededSubscription.setStripeSubscriptionId("sub_" + runId);
+        subscription = subscriptionRepository.save(seededSubscription);
+    }
+
+    @Test
+    void invoiceGeneration() {
+        // Warm-up round, then alternate so neither variant always runs on a colder cache
+        insertInvoices(BATCHED);
+        insertInvoices(ROW_BY_ROW);
+        long rowByRow = 0;
+        long batched = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            rowByRow += insertInvoices(ROW_BY_ROW);
+            batched += insertInvoices(BATCHED);
+        }
+
+        double rowByRowPerOp = MicroBenchmark.report("invoice insert, row by row", 1, (long) ROWS * ROUNDS, rowByRow);
+        double batchedPerOp = MicroBenchmark.report("invoice insert, batch size " + BATCHED, 1, (long) ROWS * ROUNDS, batched);
+        assertTrue(batchedPerOp < rowByRowPerOp, "batched inserts should beat row-by-row inserts");
+    }
+
+    @Test
+    void auditWrites() {
+        insertAudits(BATCHED);
+        insertAudits(ROW_BY_ROW);
+        long rowByRow = 0;
+        long batched = 0;
+        long writeBehind = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            rowByRow += insertAudits(ROW_BY_ROW);
+            batched += insertAudits(BATCHED);
+            writeBehind += recordAudits();
+        }
+
+        double rowByRowPerOp = MicroBenchmark.report("audit insert, row by row", 1, (long) ROWS * ROUNDS, rowByRow);
+        double batchedPerOp = MicroBenchmark.report("audit insert, batch size " + BATCHED, 1, (long) ROWS * ROUNDS, batched);
+        MicroBenchmark.report("audit write-behind, record until written", 1, (long) ROWS * ROUNDS, writeBehind);
+        assertTrue(batchedPerOp < rowByRowPerOp, "batched inserts should beat row-by-row inserts");
+    }
+
+    /**
+     * Inserts {@link #ROWS} invoices, each for a fresh payment, and returns the nanoseconds the
+     * invoice inserts took. Payments are created beforehand and not timed.
+     */
+    private long insertInvoices(int batchSize) {
+        List<Payment> payments = saveInBatches(i -> {
+            Payment payment = new Payment();
+            payment.setUser(user);
+            payment.setSubscription(subscription);
+            payment.setAmount(BigDecimal.TEN);
+            payment.setStatus(PaymentStatus.SUCCEEDED);
+            payment.setStripePaymentIntentId("pi_bench_" + System.nanoTime() + "_" + i);
+            return payment;
+        });
+        return timedInsert(batchSize, () -> invoiceRepository.saveAll(
+                payments.stream().map(invoiceService::newInvoice).toList()));
+    }
+
+    private long insertAudits(int batchSize) {
+        return timedInsert(batchSize, () -> {
+            List<SubscriptionAudit> audits = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                SubscriptionAudit audit = new SubscriptionAudit();
+                audit.setUser(user);
+                audit.setPlan(subscription.getPlan());
+                audit.setStatus("BENCHMARK");
+                audits.add(audit);
+            }
+            auditRepository.saveAll(audits);
+        });
+    }
+
+    /**
+     * Records {@link #ROWS} audit events and waits until the flusher has written all of them.
+     */
+    private long recordAudits() {
+        long writtenBefore = written();
+        long start = System.nanoTime();
+        for (int i = 0; i < ROWS; i++) {
+            auditWriter.record(new SubscriptionAuditEvent(
+                    user.getId(), subscription.getPlan(), null, "BENCHMARK", null, LocalDateTime.now()));
+        }
+        long deadline = start + 60_000_000_000L;
+        while (written() - writtenBefore < ROWS) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Audit writer did not catch up within 60s");
+            }
+            Thread.onSpinWait();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long written() {
+        return ((Number) auditWriter.metrics().get("written")).longValue();
+    }
+
+    private long timedInsert(int batchSize, Runnable insert) {
+        return transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            long start = System.nanoTime();
+            insert.run();
+            entityManager.flush();
+            long elapsed = System.nanoTime() - start;
+            entityManager.clear();
+            return elapsed;
+        });
+    }
+
+    private <T> List<T> saveInBatches(IntFunction<T> factory) {
+        return transactionTemplate.execute(status -> {
+            List<T> saved = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                T entity = factory.apply(i);
+                entityManager.persist(entity);
+                saved.add(entity);
+            }
+            entityManager.flush();
+            return saved;
+        });
+    }
+}
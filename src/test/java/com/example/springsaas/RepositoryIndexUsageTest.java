@@ -0,0 +1,252 @@
+package com.example.springsaas;
+
+import com.example.springsaas.authentication.entity.User;
+import com.example.springsaas.authentication.repository.UserRepository;
+import com.example.springsaas.invoice.entity.Invoice;
+import com.example.springsaas.invoice.entity.Invoice.InvoiceStatus;
+import com.example.springsaas.invoice.repository.InvoiceRepository;
+import com.example.springsaas.payment.entity.Payment;
+import com.example.springsaas.payment.entity.Payment.PaymentStatus;
+import com.example.springsaas.payment.repository.PaymentRepository;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
+import com.example.springsaas.subscriptionmanagement.repository.SubscriptionRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every custom method of the hot repositories against a seeded PostgreSQL (16+) database,
+ * captures the SQL Hibernate emits and fails if its generic plan still needs a sequential scan
+ * with {@code enable_seqscan = off}, i.e. if no index can serve it.
+ *
+ * <p>Only runs when {@code TEST_DATABASE_URL} points at a disposable database.
+ */
+@EnabledIfEnvironmentVariable(named = "TEST_DATABASE_URL", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${TEST_DATABASE_URL}",
+        "spring.datasource.username=${TEST_DATABASE_USERNAME:postgres}",
+        "spring.datasource.password=${TEST_DATABASE_PASSWORD:postgres}",
+        "jwt.signing.generate-dev-key=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.springsaas.RepositoryIndexUsageTest$RecordingStatementInspector"
+})
+@ActiveProfiles("stripe-stub")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryIndexUsageTest {
+
+    private static final int SEED_USERS = 500;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private PaymentRepository paymentRepository;
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+    @Autowired
+    private DataSource dataSource;
+
+    private User user;
+    private Subscription subscription;
+    private Payment payment;
+
+    @BeforeAll
+    void seed() throws Exception {
+        String runId = Long.toString(System.nanoTime(), 36);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < SEED_USERS; i++) {
+            User seeded = new User();
+            seeded.setFirstName("Seed");
+            seeded.setLastName("User" + i);
+            seeded.setEmail("seed-" + runId + "-" + i + "@example.com");
+            seeded.setPassword("x");
+            seeded.setStripeCustomerId("cus_" + runId + i);
+            seeded.setVerificationToken(i % 10 == 0 ? "verify-" + runId + i : null);
+            seeded.setResetPasswordToken(i % 20 == 0 ? "reset-" + runId + i : null);
+            seeded = userRepository.save(seeded);
+
+            Subscription seededSubscription = new Subscription();
+            seededSubscription.setUser(seeded);
+            seededSubscription.setPlan(SubscriptionPlan.values()[i % SubscriptionPlan.values().length]);
+            seededSubscription.setStatus(SubscriptionStatus.values()[i % SubscriptionStatus.values().length]);
+            seededSubscription.setAmount(BigDecimal.TEN);
+            seededSubscription.setCurrentPeriodStart(now.minusMonths(1));
+            seededSubscription.setCurrentPeriodEnd(now.plusDays(i % 60 - 30));
+            seededSubscription.setStripeSubscriptionId("sub_" + runId + i);
+            seededSubscription = subscriptionRepository.save(seededSubscription);
+
+            Payment seededPayment = new Payment();
+            seededPayment.setUser(seeded);
+            seededPayment.setSubscription(seededSubscription);
+            seededPayment.setAmount(BigDecimal.TEN);
+            seededPayment.setStatus(PaymentStatus.values()[i % PaymentStatus.values().length]);
+            seededPayment.setStripePaymentIntentId("pi_" + runId + i);
+            seededPayment = paymentRepository.save(seededPayment);
+
+            Invoice invoice = new Invoice();
+            invoice.setUser(seeded);
+            invoice.setPayment(seededPayment);
+            invoice.setInvoiceNumber("INV-" + runId + i);
+            invoice.setAmount(BigDecimal.TEN);
+            invoice.setStatus(InvoiceStatus.values()[i % InvoiceStatus.values().length]);
+            invoice.setDueDate(now.plusDays(i % 60 - 30));
+            invoiceRepository.save(invoice);
+
+            user = seeded;
+            subscription = seededSubscription;
+            payment = seededPayment;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @Test
+    void userRepositoryUsesIndexes() throws Exception {
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+        calls.put("findByEmail", () -> userRepository.findByEmail(user.getEmail()));
+        calls.put("findByResetPasswordToken", () -> userRepository.findByResetPasswordToken("reset"));
+        calls.put("findByVerificationToken", () -> userRepository.findByVerificationToken("verify"));
+        calls.put("findByStripeCustomerId", () -> userRepository.findByStripeCustomerId(user.getStripeCustomerId()));
+        calls.put("existsByEmail", () -> userRepository.existsByEmail(user.getEmail()));
+        assertIndexed(UserRepository.class, calls);
+    }
+
+    @Test
+    void subscriptionRepositoryUsesIndexes() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+        calls.put("findByUserAndStatus", () -> subscriptionRepository.findByUserAndStatus(user, SubscriptionStatus.ACTIVE));
+        calls.put("findByStripeSubscriptionId", () -> subscriptionRepository.findByStripeSubscriptionId("sub_x"));
+        calls.put("findAllByUser", () -> subscriptionRepository.findAllByUser(user));
+        calls.put("findAllByStatusAndCurrentPeriodEndBefore",
+                () -> subscriptionRepository.findAllByStatusAndCurrentPeriodEndBefore(SubscriptionStatus.ACTIVE, now));
+        calls.put("existsByUserAndStatus", () -> subscriptionRepository.existsByUserAndStatus(user, SubscriptionStatus.ACTIVE));
+        calls.put("findResponsesByUserId",
+                () -> subscriptionRepository.findResponsesByUserId(user.getId(), Long.MAX_VALUE, PageRequest.of(0, 20)));
+        calls.put("findResponseByUserIdAndStatus",
+                () -> subscriptionRepository.findResponseByUserIdAndStatus(user.getId(), SubscriptionStatus.ACTIVE));
+        calls.put("findEntitlementRows",
+                () -> subscriptionRepository.findEntitlementRows(Set.of(SubscriptionStatus.ACTIVE, SubscriptionStatus.TRIAL)));
+        calls.put("findEntitlementRowsForUsers", () -> subscriptionRepository.findEntitlementRowsForUsers(
+                List.of(user.getId()), Set.of(SubscriptionStatus.ACTIVE)));
+        calls.put("findUserIdsUpdatedSince", () -> subscriptionRepository.findUserIdsUpdatedSince(now.minusMinutes(1)));
+        assertIndexed(SubscriptionRepository.class, calls);
+    }
+
+    @Test
+    void invoiceRepositoryUsesIndexes() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+        calls.put("findAllByUser", () -> invoiceRepository.findAllByUser(user));
+        calls.put("findAllByUserAndStatus", () -> invoiceRepository.findAllByUserAndStatus(user, InvoiceStatus.SENT));
+        calls.put("findByPayment", () -> invoiceRepository.findByPayment(payment));
+        calls.put("findByInvoiceNumber", () -> invoiceRepository.findByInvoiceNumber("INV-X"));
+        calls.put("findAllByStatusAndDueDateBefore", () -> invoiceRepository.findAllByStatusAndDueDateBefore(InvoiceStatus.SENT, now));
+        calls.put("findAllByEmailSentFalseAndStatus", () -> invoiceRepository.findAllByEmailSentFalseAndStatus(InvoiceStatus.DRAFT));
+        calls.put("findWithDetailsById", () -> invoiceRepository.findWithDetailsById(1L));
+        calls.put("findUnsentPageForPeriod", () -> invoiceRepository.findUnsentPageForPeriod(
+                InvoiceStatus.DRAFT, now.minusMonths(1), now, 0L, 0, 4, PageRequest.of(0, 100)));
+        assertIndexed(InvoiceRepository.class, calls);
+    }
+
+    @Test
+    void paymentRepositoryUsesIndexes() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> calls = new LinkedHashMap<>();
+        calls.put("findAllByUser", () -> paymentRepository.findAllByUser(user));
+        calls.put("findAllByUserAndStatus", () -> paymentRepository.findAllByUserAndStatus(user, PaymentStatus.SUCCEEDED));
+        calls.put("findAllBySubscription", () -> paymentRepository.findAllBySubscription(subscription));
+        calls.put("findByStripePaymentIntentId", () -> paymentRepository.findByStripePaymentIntentId("pi_x"));
+        calls.put("findAllByStatusAndCreatedAtBetween", () -> paymentRepository.findAllByStatusAndCreatedAtBetween(
+                PaymentStatus.SUCCEEDED, now.minusMonths(1), now));
+        calls.put("findPageForInvoicing", () -> paymentRepository.findPageForInvoicing(
+                PaymentStatus.SUCCEEDED, now.minusMonths(1), now, 0L, 0, 4, PageRequest.of(0, 100)));
+        assertIndexed(PaymentRepository.class, calls);
+    }
+
+    private void assertIndexed(Class<?> repository, Map<String, Runnable> calls) throws Exception {
+        Set<String> declared = Arrays.stream(repository.getDeclaredMethods())
+                .map(Method::getName)
+                .collect(Collectors.toSet());
+        assertEquals(declared, calls.keySet(), "Every method of " + repository.getSimpleName() + " must be covered");
+
+        List<String> failures = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+            for (Map.Entry<String, Runnable> call : calls.entrySet()) {
+                RecordingStatementInspector.STATEMENTS.clear();
+                call.getValue().run();
+                for (String sql : RecordingStatementInspector.STATEMENTS) {
+                    String plan = explain(statement, sql);
+                    if (plan.contains("Seq Scan")) {
+                        failures.add(call.getKey() + ":\n" + sql + "\n" + plan);
+                    }
+                }
+            }
+        }
+        assertTrue(failures.isEmpty(), "Sequential scans found:\n" + String.join("\n\n", failures));
+    }
+
+    private static String explain(Statement statement, String sql) throws Exception {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet resultSet = statement.executeQuery("EXPLAIN (GENERIC_PLAN) " + numbered)) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
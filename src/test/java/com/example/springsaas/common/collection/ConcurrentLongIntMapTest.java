@@ -0,0 +1,185 @@
+package com.example.springsaas.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentLongIntMapTest {
+
+    private static final int MISSING = -1;
+
+    @Test
+    void putOverwritesAndRemoveForgets() {
+        ConcurrentLongIntMap map = new ConcurrentLongIntMap(4);
+
+        map.put(7L, 1);
+        map.put(7L, 2);
+        map.put(-7L, 3);
+
+        assertEquals(2, map.get(7L, MISSING));
+        assertEquals(3, map.get(-7L, MISSING));
+        assertEquals(2, map.size());
+
+        map.remove(7L);
+        map.remove(7L);
+        assertEquals(MISSING, map.get(7L, MISSING));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void keyZeroIsReserved() {
+        ConcurrentLongIntMap map = new ConcurrentLongIntMap(4);
+        map.put(1L, 5);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.remove(0L));
+        assertThrows(IllegalArgumentException.class, () -> map.replaceAll(new long[]{0L}, new int[]{1}, 1));
+        // Empty slots hold key 0, so a lookup must not report their value
+        assertEquals(MISSING, map.get(0L, MISSING));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void deletesKeepProbeChainsIntact() {
+        // A small key range in a small table gives long, wrapping probe chains, so every
+        // removal exercises the backward shift; after each step every key must still resolve
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            ConcurrentLongIntMap map = new ConcurrentLongIntMap(8);
+            Map<Long, Integer> expected = new HashMap<>();
+            for (int step = 0; step < 2_000; step++) {
+                long key = 1 + random.nextInt(24);
+                if (random.nextInt(3) == 0) {
+                    map.remove(key);
+                    expected.remove(key);
+                } else {
+                    int value = random.nextInt(1_000);
+                    map.put(key, value);
+                    expected.put(key, value);
+                }
+                for (long k = 1; k <= 24; k++) {
+                    assertEquals(expected.getOrDefault(k, MISSING), map.get(k, MISSING),
+                            "round " + round + ", step " + step + ", key " + k);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+        }
+    }
+
+    @Test
+    void growsPastTheExpectedSize() {
+        ConcurrentLongIntMap map = new ConcurrentLongIntMap(1);
+        int count = 50_000;
+        for (int i = 1; i <= count; i++) {
+            map.put(i * 0x9E3779B97F4A7C15L, i);
+        }
+
+        assertEquals(count, map.size());
+        for (int i = 1; i <= count; i++) {
+            assertEquals(i, map.get(i * 0x9E3779B97F4A7C15L, MISSING));
+        }
+        for (int i = 1; i <= count; i += 2) {
+            map.remove(i * 0x9E3779B97F4A7C15L);
+        }
+        for (int i = 1; i <= count; i++) {
+            assertEquals(i % 2 == 0 ? i : MISSING, map.get(i * 0x9E3779B97F4A7C15L, MISSING));
+        }
+    }
+
+    @Test
+    void replaceAllSwapsTheWholeContent() {
+        ConcurrentLongIntMap map = new ConcurrentLongIntMap(4);
+        map.put(1L, 1);
+
+        map.replaceAll(new long[]{2L, 3L, 3L, 99L}, new int[]{20, 30, 31, 990}, 3);
+
+        assertEquals(MISSING, map.get(1L, MISSING));
+        assertEquals(20, map.get(2L, MISSING));
+        assertEquals(31, map.get(3L, MISSING));
+        assertEquals(MISSING, map.get(99L, MISSING));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void readersNeverSeeTornOrWrongValuesWhileWritersResize() throws Exception {
+        // Stable keys are never touched after setup; churn keys are inserted, removed and
+        // resized around them. A value is always derived from its key, so a reader that pairs
+        // a key with the wrong slot or a half-copied table is caught.
+        ConcurrentLongIntMap map = new ConcurrentLongIntMap(16);
+        int stableKeys = 1_000;
+        for (long key = 1; key <= stableKeys; key++) {
+            map.put(key, valueFor(key));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        int readers = 4;
+        CountDownLatch done = new CountDownLatch(readers + 1);
+
+        Thread writer = new Thread(() -> {
+            Random random = new Random(7);
+            try {
+                while (running.get()) {
+                    long base = stableKeys + 1 + random.nextInt(100_000);
+                    for (long key = base; key < base + 500; key++) {
+                        map.put(key, valueFor(key));
+                    }
+                    for (long key = base; key < base + 500; key++) {
+                        map.remove(key);
+                    }
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                done.countDown();
+            }
+        });
+        writer.start();
+
+        for (int r = 0; r < readers; r++) {
+            long seed = r;
+            new Thread(() -> {
+                Random random = new Random(seed);
+                try {
+                    while (running.get()) {
+                        long stable = 1 + random.nextInt(stableKeys);
+                        int value = map.get(stable, MISSING);
+                        if (value != valueFor(stable)) {
+                            throw new AssertionError("stable key " + stable + " read " + value);
+                        }
+                        long churn = stableKeys + 1 + random.nextInt(100_500);
+                        value = map.get(churn, MISSING);
+                        if (value != MISSING && value != valueFor(churn)) {
+                            throw new AssertionError("churn key " + churn + " read " + value);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        Thread.sleep(1_000);
+        running.set(false);
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNull(failure.get());
+        assertEquals(stableKeys, map.size());
+    }
+
+    private static int valueFor(long key) {
+        return (int) (key * 31 + 7);
+    }
+}
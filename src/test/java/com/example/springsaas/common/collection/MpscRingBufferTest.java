@@ -0,0 +1,163 @@
+package com.example.springsaas.common.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertEquals(8, new MpscRingBuffer<>(8).capacity());
+        assertEquals(16, new MpscRingBuffer<>(9).capacity());
+    }
+
+    @Test
+    void keepsFifoOrderAcrossManyWrapArounds() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        for (int round = 0; round < 1_000; round++) {
+            // Varying fill levels move head and tail across the end of the array at every offset
+            int count = 1 + round % buffer.capacity();
+            for (int i = 0; i < count; i++) {
+                assertTrue(buffer.offer(next++));
+            }
+            buffer.drain(drained::add, round % 3 == 0 ? count : Integer.MAX_VALUE);
+        }
+        buffer.drain(drained::add, Integer.MAX_VALUE);
+
+        assertEquals(next, drained.size());
+        for (int i = 0; i < drained.size(); i++) {
+            assertEquals(i, drained.get(i));
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void rejectsOffersWhenFullUntilDrained() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, buffer.drain(drained::add, 1));
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+
+        buffer.drain(drained::add, Integer.MAX_VALUE);
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+    }
+
+    @Test
+    void drainStopsAtAClaimedButUnpublishedSlot() throws Exception {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(4);
+        buffer.offer("a");
+        // A producer that won the CAS on the tail but has not written its slot yet
+        long claimed = tail(buffer).getAndIncrement();
+        buffer.offer("c");
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(1, buffer.drain(drained::add, Integer.MAX_VALUE));
+        assertEquals(0, buffer.drain(drained::add, Integer.MAX_VALUE));
+        assertEquals(2, buffer.size());
+
+        slots(buffer).set((int) claimed & (buffer.capacity() - 1), "b");
+        assertEquals(2, buffer.drain(drained::add, Integer.MAX_VALUE));
+        assertArrayEquals(new String[]{"a", "b", "c"}, drained.toArray());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void deliversEveryElementOnceAndInProducerOrderUnderContention() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        // Small enough that producers keep hitting a full buffer and the indexes wrap constantly
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(64);
+        LongAdder rejected = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (long seq = 0; seq < perProducer; seq++) {
+                        long[] element = {producer, seq};
+                        while (!buffer.offer(element)) {
+                            rejected.increment();
+                            Thread.yield();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    finished.countDown();
+                }
+            }).start();
+        }
+
+        long[] nextExpected = new long[producers];
+        long received = 0;
+        long total = (long) producers * perProducer;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(120);
+        start.countDown();
+        while (received < total) {
+            assertTrue(System.nanoTime() < deadline, "consumer only received " + received + " of " + total);
+            int drained = buffer.drain(element -> {
+                int producer = (int) element[0];
+                if (element[1] != nextExpected[producer]) {
+                    throw new AssertionError("producer " + producer + ": expected " + nextExpected[producer]
+                            + " but got " + element[1]);
+                }
+                nextExpected[producer]++;
+            }, 32);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            received += drained;
+        }
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertNull(failure.get());
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer, nextExpected[p]);
+        }
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.drain(element -> { }, Integer.MAX_VALUE));
+        assertTrue(rejected.sum() > 0, "the buffer never filled up; the full path was not exercised");
+    }
+
+    private static AtomicLong tail(MpscRingBuffer<?> buffer) throws Exception {
+        Field field = MpscRingBuffer.class.getDeclaredField("tail");
+        field.setAccessible(true);
+        return (AtomicLong) field.get(buffer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> AtomicReferenceArray<E> slots(MpscRingBuffer<E> buffer) throws Exception {
+        Field field = MpscRingBuffer.class.getDeclaredField("slots");
+        field.setAccessible(true);
+        return (AtomicReferenceArray<E>) field.get(buffer);
+    }
+}
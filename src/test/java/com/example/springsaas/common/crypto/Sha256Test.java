@@ -0,0 +1,18 @@
+package com.example.springsaas.common.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Sha256Test {
+
+    @Test
+    void matchesTheStandardTestVector() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                HexFormat.of().formatHex(Sha256.digest("abc".getBytes(StandardCharsets.UTF_8))));
+        assertEquals("ungWv48Bz-pBQUDeXa4iI7ADYaOWF3qctBD_YfIAFa0", Sha256.base64Url("abc"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.springsaas.common.resilience;
+
+import com.example.springsaas.common.resilience.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final Duration OPEN = Duration.ofSeconds(30);
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(20);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, OPEN, PROBE_TIMEOUT, clock::get);
+
+    @Test
+    void staysClosedBelowMinimumCallsAndThreshold() {
+        fail(3);
+        assertEquals(State.CLOSED, breaker.state());
+
+        succeed(6);
+        fail(1);
+        // 4 failures out of 10
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void opensAtTheThresholdAndRejectsUntilOpenDurationPassed() {
+        succeed(2);
+        fail(2);
+
+        assertEquals(State.OPEN, breaker.state());
+        assertEquals(1, breaker.timesOpened());
+        assertFalse(breaker.tryAcquire());
+
+        advance(OPEN.minusMillis(1));
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, breaker.rejected());
+    }
+
+    @Test
+    void oldResultsLeaveTheWindow() {
+        fail(1);
+        succeed(9);
+
+        // Evicts the first failure, so this is 4 of 10 rather than 5
+        fail(4);
+        assertEquals(State.CLOSED, breaker.state());
+        fail(1);
+        assertEquals(State.OPEN, breaker.state());
+    }
+
+    @Test
+    void closingStartsANewWindow() {
+        open();
+        breaker.onSuccess();
+
+        succeed(6);
+        fail(4);
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThroughAndClosesOnSuccess() {
+        open();
+
+        assertEquals(State.HALF_OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedProbeReopens() {
+        open();
+
+        breaker.onFailure();
+
+        assertEquals(State.OPEN, breaker.state());
+        assertEquals(2, breaker.timesOpened());
+        assertFalse(breaker.tryAcquire());
+        advance(OPEN);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void probeThatNeverReportsIsWrittenOffAfterTheProbeTimeout() {
+        open();
+
+        advance(PROBE_TIMEOUT.minusMillis(1));
+        assertFalse(breaker.tryAcquire());
+
+        advance(Duration.ofMillis(1));
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void rejectsInvalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(5, 6, 0.5, OPEN, PROBE_TIMEOUT));
+    }
+
+    // Trips the breaker and takes the half-open probe
+    private void open() {
+        fail(4);
+        assertEquals(State.OPEN, breaker.state());
+        advance(OPEN);
+        assertTrue(breaker.tryAcquire());
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess();
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.springsaas.invoice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalFileInvoiceArtifactStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void openedContentStreamsTheWholeFile() throws Exception {
+        LocalFileInvoiceArtifactStore store = new LocalFileInvoiceArtifactStore(directory.toString());
+        byte[] document = new byte[3 * 1024 * 1024 + 17];
+        Arrays.fill(document, (byte) 'x');
+        StoredArtifact artifact = store.store(42L, "v1", out -> out.write(document));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StoredArtifact.Content content = artifact.open()) {
+            assertEquals(document.length, content.size());
+            content.writeTo(out);
+        }
+
+        assertArrayEquals(document, out.toByteArray());
+    }
+
+    @Test
+    void openedContentSurvivesANewerVersion() throws Exception {
+        LocalFileInvoiceArtifactStore store = new LocalFileInvoiceArtifactStore(directory.toString());
+        StoredArtifact first = store.store(42L, "v1", out -> out.write("first".getBytes()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StoredArtifact.Content content = first.open()) {
+            store.store(42L, "v2", next -> next.write("second version".getBytes()));
+            content.writeTo(out);
+        }
+
+        assertEquals("first", out.toString());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.springsaas.payment.service;
+
+import com.example.springsaas.config.StripeGatewayProperties;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.InvalidRequestException;
+import com.stripe.model.Customer;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.CustomerCreateParams;
+import com.stripe.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResilientStripeGatewayTest {
+
+    private final StripeClient client = mock(StripeClient.class);
+    private final CustomerService customers = mock(CustomerService.class);
+    private final StripeGatewayProperties properties = new StripeGatewayProperties();
+    private final Customer customer = new Customer();
+
+    @BeforeEach
+    void setUp() {
+        when(client.customers()).thenReturn(customers);
+        properties.setBaseRetryDelay(Duration.ofMillis(1));
+        properties.setMaxRetryDelay(Duration.ofMillis(2));
+        properties.setBulkheadWait(Duration.ofMillis(10));
+        properties.getCircuitBreaker().setWindowSize(4);
+        properties.getCircuitBreaker().setMinimumCalls(2);
+        properties.getCircuitBreaker().setFailureRateThreshold(0.5);
+    }
+
+    @Test
+    void retriesTransientFailuresWithTheSameIdempotencyKey() throws Exception {
+        when(customers.create(any(CustomerCreateParams.class), any(RequestOptions.class)))
+                .thenThrow(new ApiConnectionException("connection reset"))
+                .thenThrow(new InvalidRequestException("request in flight", null, null, null, 409, null))
+                .thenReturn(customer);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        ResilientStripeGateway gateway = new ResilientStripeGateway(properties, client);
+
+        assertSame(customer, gateway.createCustomer("ada@example.com", "Ada", "customer-42"));
+
+        ArgumentCaptor<RequestOptions> options = ArgumentCaptor.forClass(RequestOptions.class);
+        verify(customers, times(3)).create(any(CustomerCreateParams.class), options.capture());
+        for (RequestOptions attempt : options.getAllValues()) {
+            assertEquals("customer-42", attempt.getIdempotencyKey());
+            assertEquals(0, attempt.getMaxNetworkRetries());
+        }
+        assertEquals(2L, operationMetrics(gateway).get("retries"));
+        assertEquals(2L, operationMetrics(gateway).get("failures"));
+    }
+
+    @Test
+    void stopsAfterMaxAttempts() throws Exception {
+        ApiConnectionException failure = new ApiConnectionException("timeout");
+        when(customers.create(any(CustomerCreateParams.class), any(RequestOptions.class))).thenThrow(failure);
+        properties.getDefaults().setMaxAttempts(2);
+        properties.getCircuitBreaker().setWindowSize(10);
+        properties.getCircuitBreaker().setMinimumCalls(10);
+        ResilientStripeGateway gateway = new ResilientStripeGateway(properties, client);
+
+        assertSame(failure, assertThrows(ApiConnectionException.class,
+                () -> gateway.createCustomer("ada@example.com", "Ada", "customer-42")));
+        verify(customers, times(2)).create(any(CustomerCreateParams.class), any(RequestOptions.class));
+    }
+
+    @Test
+    void rejectedRequestsAreNotRetriedAndKeepTheBreakerClosed() throws Exception {
+        when(customers.create(any(CustomerCreateParams.class), any(RequestOptions.class)))
+                .thenThrow(new InvalidRequestException("invalid email", "email", null, null, 400, null));
+        ResilientStripeGateway gateway = new ResilientStripeGateway(properties, client);
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(InvalidRequestException.class, () -> gateway.createCustomer("nope", "Ada", null));
+        }
+
+        verify(customers, times(4)).create(any(CustomerCreateParams.class), any(RequestOptions.class));
+        assertEquals("CLOSED", gateway.metrics().get("circuitState"));
+    }
+
+    @Test
+    void openBreakerRejectsWithoutCallingStripe() throws Exception {
+        when(customers.create(any(CustomerCreateParams.class), any(RequestOptions.class)))
+                .thenThrow(new ApiConnectionException("connection refused"));
+        properties.getDefaults().setMaxAttempts(1);
+        ResilientStripeGateway gateway = new ResilientStripeGateway(properties, client);
+
+        assertThrows(ApiConnectionException.class, () -> gateway.createCustomer("ada@example.com", "Ada", null));
+        assertThrows(ApiConnectionException.class, () -> gateway.createCustomer("ada@example.com", "Ada", null));
+        ApiConnectionException rejected = assertThrows(ApiConnectionException.class,
+                () -> gateway.createCustomer("ada@example.com", "Ada", null));
+
+        assertTrue(rejected.getMessage().contains("circuit breaker is open"), rejected.getMessage());
+        verify(customers, times(2)).create(any(CustomerCreateParams.class), any(RequestOptions.class));
+        assertEquals("OPEN", gateway.metrics().get("circuitState"));
+        assertEquals(1L, operationMetrics(gateway).get("rejected"));
+    }
+
+    @Test
+    void unexpectedExceptionDuringAProbeReopensInsteadOfWedgingTheBreaker() throws Exception {
+        when(customers.create(any(CustomerCreateParams.class), any(RequestOptions.class)))
+                .thenThrow(new ApiConnectionException("connection refused"))
+                .thenThrow(new ApiConnectionException("connection refused"))
+                .thenThrow(new IllegalStateException("unexpected response"))
+                .thenReturn(customer);
+        properties.getDefaults().setMaxAttempts(1);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ZERO);
+        ResilientStripeGateway gateway = new ResilientStripeGateway(properties, client);
+        assertThrows(ApiConnectionException.class, () -> gateway.createCustomer("ada@example.com", "Ada", null));
+        assertThrows(ApiConnectionException.class, () -> gateway.createCustomer("ada@example.com", "Ada", null));
+
+        // The probe fails with something other than a StripeException
+        assertThrows(IllegalStateException.class, () -> gateway.createCustomer("ada@example.com", "Ada", null));
+        assertEquals("OPEN", gateway.metrics().get("circuitState"));
+
+        assertSame(customer, gateway.createCustomer("ada@example.com", "Ada", null));
+        assertEquals("CLOSED", gateway.metrics().get("circuitState"));
+    }
+
+    @Test
+    void fullBulkheadRejectsAfterTheWait() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(customers.create(any(CustomerCreateParams.class), any(RequestOptions.class))).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await();
+            return customer;
+        });
+        properties.getDefaults().setMaxConcurrent(1);
+        ResilientStripeGateway gateway = new ResilientStripeGateway(properties, client);
+
+        CompletableFuture<Customer> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return gateway.createCustomer("ada@example.com", "Ada", null);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        ApiConnectionException rejected = assertThrows(ApiConnectionException.class,
+                () -> gateway.createCustomer("grace@example.com", "Grace", null));
+        assertTrue(rejected.getMessage().contains("bulkhead full"), rejected.getMessage());
+        assertEquals(1L, operationMetrics(gateway).get("rejected"));
+        assertEquals(1, operationMetrics(gateway).get("inFlight"));
+
+        release.countDown();
+        assertSame(customer, first.get(5, TimeUnit.SECONDS));
+        assertEquals(0, operationMetrics(gateway).get("inFlight"));
+        verify(customers, times(1)).create(any(CustomerCreateParams.class), any(RequestOptions.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> operationMetrics(ResilientStripeGateway gateway) {
+        return (Map<String, Object>) gateway.metrics().get(StripeOperation.CREATE_CUSTOMER.name());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.authentication.entity.User;
+import com.example.springsaas.config.JwtSigningProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessTokenRevocationsTest {
+
+    private final AccessTokenRevocations revocations = new AccessTokenRevocations(900_000, 16);
+
+    @Test
+    void comparesIssueTimesToTheMillisecond() {
+        Instant revokedAt = Instant.now().plusMillis(300);
+        revocations.revoke(42L, revokedAt);
+
+        assertTrue(revocations.isRevoked(42L, revokedAt.minusMillis(1)));
+        assertFalse(revocations.isRevoked(42L, revokedAt));
+        assertFalse(revocations.isRevoked(42L, revokedAt.plusMillis(1)));
+        assertFalse(revocations.isRevoked(7L, revokedAt.minusMillis(1)));
+    }
+
+    @Test
+    void tokenIssuedInTheSameSecondAfterTheRevocationStaysValid() {
+        JwtSigningProperties properties = new JwtSigningProperties();
+        properties.setGenerateDevKey(true);
+        JwtService jwtService = new JwtService(new JwtKeyRing(properties), 900_000);
+        User user = new User("Ada", "Lovelace", "ada@example.com", "secret");
+        user.setId(42L);
+        user.setEnabled(true);
+
+        VerifiedToken before = jwtService.verify(jwtService.generateAccessToken(user));
+        revocations.revoke(42L, before.issuedAt().plusMillis(1));
+        VerifiedToken after = jwtService.verify(jwtService.generateAccessToken(user));
+        while (!after.issuedAt().isAfter(before.issuedAt())) {
+            after = jwtService.verify(jwtService.generateAccessToken(user));
+        }
+
+        assertTrue(revocations.isRevoked(42L, before.issuedAt()));
+        assertFalse(revocations.isRevoked(42L, after.issuedAt()));
+    }
+
+    @Test
+    void onlyALaterRevocationMovesNotBefore() {
+        Instant first = Instant.now();
+        revocations.revoke(42L, first);
+        revocations.revoke(42L, first.minusMillis(500));
+
+        assertFalse(revocations.isRevoked(42L, first));
+        assertEquals(1L, revocations.metrics().get("revocations"));
+    }
+
+    @Test
+    void revocationsOlderThanATokenLifetimeAreIgnored() {
+        revocations.revoke(42L, Instant.now().minusMillis(900_001));
+
+        assertFalse(revocations.isRevoked(42L, Instant.now().minusMillis(899_000)));
+        assertEquals(0, revocations.metrics().get("users"));
+    }
+}
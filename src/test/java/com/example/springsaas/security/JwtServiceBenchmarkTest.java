@@ -0,0 +1,56 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.authentication.entity.User;
+import com.example.springsaas.config.JwtSigningProperties;
+import com.example.springsaas.support.MicroBenchmark;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares one {@link JwtService#verify} per request with the previous flow, which built a
+ * parser and re-verified the signature for every claim it read (subject, then subject and
+ * expiry again for the validity check).
+ */
+@EnabledIfEnvironmentVariable(named = MicroBenchmark.ENABLED_VARIABLE, matches = "true")
+class JwtServiceBenchmarkTest {
+
+    private static final int WARMUP = 500;
+    private static final int MEASURED = 2_000;
+
+    @Test
+    void verifyOnceBeatsParsePerClaim() {
+        JwtSigningProperties properties = new JwtSigningProperties();
+        properties.setGenerateDevKey(true);
+        JwtKeyRing keyRing = new JwtKeyRing(properties);
+        JwtService jwtService = new JwtService(keyRing, 900_000);
+        User user = new User("Ada", "Lovelace", "ada@example.com", "secret");
+        user.setId(42L);
+        user.setEnabled(true);
+        String token = jwtService.generateAccessToken(user);
+
+        double parsePerClaim = MicroBenchmark.nanosPerOp("parse per claim (3 parses)", WARMUP, MEASURED, i -> {
+            String subject = parseClaim(keyRing, token, Claims::getSubject);
+            boolean valid = subject.equals(parseClaim(keyRing, token, Claims::getSubject))
+                    && parseClaim(keyRing, token, Claims::getExpiration).getTime() > System.currentTimeMillis();
+            MicroBenchmark.consume(valid ? 1 : 0);
+        });
+        double verifyOnce = MicroBenchmark.nanosPerOp("verify once + toPrincipal", WARMUP, MEASURED, i -> {
+            VerifiedToken verified = jwtService.verify(token);
+            MicroBenchmark.consume(jwtService.toPrincipal(verified));
+        });
+
+        assertTrue(verifyOnce * 2 < parsePerClaim,
+                () -> "expected verify() to be at least 2x faster, was " + verifyOnce + " vs " + parsePerClaim + " ns");
+    }
+
+    private static <T> T parseClaim(JwtKeyRing keyRing, String token, Function<Claims, T> resolver) {
+        Claims claims = Jwts.parser().keyLocator(keyRing).build().parseSignedClaims(token).getPayload();
+        return resolver.apply(claims);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.config.RateLimitProperties;
+import com.example.springsaas.config.RateLimitProperties.KeyType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.ServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitFilterTest {
+
+    private static final String LOGIN = "/api/auth/login";
+
+    @Test
+    void jsonLoginIsLimitedPerEmailAcrossIps() throws Exception {
+        RateLimitFilter filter = filter(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, login(filter, "10.0.0." + i, "Ada@Example.com").getStatus());
+        }
+        MockHttpServletResponse limited = login(filter, "10.0.0.99", " ada@example.com ");
+
+        assertEquals(429, limited.getStatus());
+        assertNotNull(limited.getHeader(HttpHeaders.RETRY_AFTER));
+        // Other accounts from the same IPs are unaffected
+        assertEquals(200, login(filter, "10.0.0.99", "grace@example.com").getStatus());
+    }
+
+    @Test
+    void controllerStillReadsTheBody() throws Exception {
+        RateLimitFilter filter = filter(3);
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "ada@example.com");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        ServletRequest forwarded = chain.getRequest();
+        assertEquals(new String(request.getContentAsByteArray(), StandardCharsets.UTF_8),
+                new String(forwarded.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void oversizedBodyOnAnEmailKeyedRouteIsRejected() throws Exception {
+        RateLimitFilter filter = filter(3);
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "ada@example.com");
+        request.setContent(("{\"email\":\"ada@example.com\",\"padding\":\"" + "x".repeat(2048) + "\"}")
+                .getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(413, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void malformedBodyFallsBackToTheIpBucket() throws Exception {
+        RateLimitFilter filter = filter(1);
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "ada@example.com");
+        request.setContent("{not json".getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(request, first, new MockFilterChain());
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(loginRequest("10.0.0.1", "grace@example.com"), second, new MockFilterChain());
+
+        assertEquals(200, first.getStatus());
+        assertEquals(429, second.getStatus());
+    }
+
+    @Test
+    void spoofedForwardedForEntriesDoNotGetTheirOwnBucket() throws Exception {
+        RateLimitFilter filter = filter(2, 1);
+
+        for (int i = 0; i < 2; i++) {
+            assertEquals(200, forwarded(filter, "198.51.100." + i + ", 203.0.113.7").getStatus());
+        }
+
+        assertEquals(429, forwarded(filter, "198.51.100.99, 203.0.113.7").getStatus());
+        assertEquals(200, forwarded(filter, "203.0.113.8").getStatus());
+    }
+
+    @Test
+    void forwardedForIsTakenOneHopPerTrustedProxyFromTheRight() throws Exception {
+        RateLimitFilter filter = filter(1, 2);
+
+        assertEquals(200, forwarded(filter, "1.1.1.1, 203.0.113.7, 10.1.0.1").getStatus());
+        assertEquals(429, forwarded(filter, "2.2.2.2, 203.0.113.7, 10.1.0.2").getStatus());
+        // Too few entries: falls back to the remote address of the connection
+        assertEquals(200, forwarded(filter, "203.0.113.9").getStatus());
+        assertEquals(429, forwarded(filter, "203.0.113.10").getStatus());
+    }
+
+    private static RateLimitFilter filter(int capacity) {
+        return filter(capacity, 0);
+    }
+
+    private static RateLimitFilter filter(int capacity, int trustedProxies) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setTrustedProxies(trustedProxies);
+        properties.setMaxBodyBytes(1024);
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setPath(LOGIN);
+        route.setCapacity(capacity);
+        route.setPeriod(Duration.ofMinutes(1));
+        route.setKeys(EnumSet.of(KeyType.IP, KeyType.EMAIL));
+        properties.setRoutes(List.of(route));
+        return new RateLimitFilter(new RateLimiter(properties), properties, new ObjectMapper().findAndRegisterModules());
+    }
+
+    private static MockHttpServletResponse login(RateLimitFilter filter, String ip, String email) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(ip, email), response, new MockFilterChain());
+        return response;
+    }
+
+    // Empty email, so only the IP key applies; every connection comes from the proxy at 10.0.0.1
+    private static MockHttpServletResponse forwarded(RateLimitFilter filter, String forwardedFor) throws Exception {
+        MockHttpServletRequest request = loginRequest("10.0.0.1", "");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api" + LOGIN);
+        request.setContextPath("/api");
+        request.setRemoteAddr(ip);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.config.RateLimitProperties;
+import com.example.springsaas.support.MicroBenchmark;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Times {@link RateLimiter#tryAcquire} on a set of hot keys, from one and from several threads,
+ * and under a spray of new keys against a full bucket map. The spray case compares the
+ * throttled inline sweep with one that runs on every new key, as it did originally.
+ */
+@EnabledIfEnvironmentVariable(named = MicroBenchmark.ENABLED_VARIABLE, matches = "true")
+class RateLimiterBenchmarkTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final int HOT_KEYS = 1_000;
+    private static final int THREADS = 4;
+    private static final int MAX_BUCKETS = 10_000;
+
+    @Test
+    void hotKeysStayCheapUnderContention() {
+        RateLimiter limiter = limiter(MAX_BUCKETS, Duration.ofSeconds(1));
+        String[] keys = keys("ip:", HOT_KEYS);
+
+        double single = MicroBenchmark.nanosPerOp("hot keys", 1, 200_000, 1_000_000,
+                i -> MicroBenchmark.consume(limiter.tryAcquire("overflow", 1_000_000, MINUTE, keys[i % HOT_KEYS])));
+        double contended = MicroBenchmark.nanosPerOp("hot keys", THREADS, 200_000, 1_000_000,
+                i -> MicroBenchmark.consume(limiter.tryAcquire("overflow", 1_000_000, MINUTE, keys[i % HOT_KEYS])));
+        double twoKeys = MicroBenchmark.nanosPerOp("hot keys, ip + email", THREADS, 200_000, 1_000_000,
+                i -> MicroBenchmark.consume(limiter.tryAcquire("overflow", 1_000_000, MINUTE,
+                        keys[i % HOT_KEYS], keys[(i + 1) % HOT_KEYS])));
+
+        assertTrue(single < 5_000 && contended < 50_000 && twoKeys < 50_000,
+                () -> "hot-key checks too slow: " + single + " / " + contended + " / " + twoKeys + " ns");
+    }
+
+    @Test
+    void keySprayAgainstAFullMapDoesNotSweepPerRequest() {
+        int spray = 20_000;
+        String[] sprayKeys = keys("spray:", spray);
+
+        RateLimiter everyRequest = fullLimiter(Duration.ZERO);
+        double unthrottled = MicroBenchmark.nanosPerOp("key spray, sweep per new key", 1, 0, spray,
+                i -> MicroBenchmark.consume(everyRequest.tryAcquire("overflow", 1_000_000, MINUTE, sprayKeys[i])));
+
+        RateLimiter throttled = fullLimiter(Duration.ofSeconds(1));
+        double oncePerSecond = MicroBenchmark.nanosPerOp("key spray, sweep once per second", 1, 0, spray,
+                i -> MicroBenchmark.consume(throttled.tryAcquire("overflow", 1_000_000, MINUTE, sprayKeys[i])));
+        double concurrent = MicroBenchmark.nanosPerOp("key spray, sweep once per second", THREADS, 0, spray,
+                i -> MicroBenchmark.consume(throttled.tryAcquire("overflow", 1_000_000, MINUTE, sprayKeys[i])));
+
+        assertTrue(oncePerSecond * 10 < unthrottled,
+                () -> "expected the throttled sweep to be at least 10x faster, was "
+                        + oncePerSecond + " vs " + unthrottled + " ns");
+        assertTrue(concurrent < 50_000, () -> "concurrent key spray too slow: " + concurrent + " ns");
+    }
+
+    // A map filled with buckets that are not idle, so no sweep can free a slot
+    private static RateLimiter fullLimiter(Duration inlineSweepInterval) {
+        RateLimiter limiter = limiter(MAX_BUCKETS, inlineSweepInterval);
+        for (String key : keys("ip:", MAX_BUCKETS)) {
+            limiter.tryAcquire("overflow", 5, MINUTE, key);
+        }
+        return limiter;
+    }
+
+    private static RateLimiter limiter(int maxBuckets, Duration inlineSweepInterval) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(maxBuckets);
+        properties.setInlineSweepInterval(inlineSweepInterval);
+        return new RateLimiter(properties);
+    }
+
+    private static String[] keys(String prefix, int count) {
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = prefix + i;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.springsaas.security;
+
+import com.example.springsaas.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void allowsABurstOfCapacityThenLimits() {
+        RateLimiter limiter = limiter(100, Duration.ofSeconds(1));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("overflow", 3, MINUTE, "ip:1"));
+        }
+        long wait = limiter.tryAcquire("overflow", 3, MINUTE, "ip:1");
+
+        assertTrue(wait > 0 && wait <= MINUTE / 3, "wait was " + wait);
+    }
+
+    @Test
+    void rejectedRequestDoesNotChargeTheOtherKeys() {
+        RateLimiter limiter = limiter(100, Duration.ofSeconds(1));
+        // Exhaust the e-mail bucket from other addresses
+        assertEquals(0, limiter.tryAcquire("overflow", 2, MINUTE, "ip:other", "email:a"));
+        assertEquals(0, limiter.tryAcquire("overflow", 2, MINUTE, "ip:another", "email:a"));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("overflow", 2, MINUTE, "ip:1", "email:a") > 0);
+        }
+
+        // ip:1 still has its whole burst left for other addresses
+        assertEquals(0, limiter.tryAcquire("overflow", 2, MINUTE, "ip:1", "email:b"));
+        assertEquals(0, limiter.tryAcquire("overflow", 2, MINUTE, "ip:1", "email:c"));
+        assertTrue(limiter.tryAcquire("overflow", 2, MINUTE, "ip:1", "email:d") > 0);
+    }
+
+    @Test
+    void fullMapSendsNewKeysToTheOverflowBucketWithoutSweepingOnEveryRequest() {
+        RateLimiter limiter = limiter(10, Duration.ofHours(1));
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire("overflow", 1_000, MINUTE, "ip:" + i);
+        }
+
+        // The first new key may sweep (nothing is idle yet); later ones must not scan again
+        for (int i = 10; i < 1_000; i++) {
+            assertEquals(0, limiter.tryAcquire("overflow", 100_000, MINUTE, "ip:" + i));
+        }
+
+        assertEquals(990L, limiter.metrics().get("overflowed"));
+        assertEquals(11, limiter.metrics().get("buckets"));
+    }
+
+    private static RateLimiter limiter(int maxBuckets, Duration inlineSweepInterval) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(maxBuckets);
+        properties.setInlineSweepInterval(inlineSweepInterval);
+        return new RateLimiter(properties);
+    }
+}
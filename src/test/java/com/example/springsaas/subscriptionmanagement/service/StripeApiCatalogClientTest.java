@@ -0,0 +1,50 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.payment.service.StripeGateway;
+import com.example.springsaas.subscriptionmanagement.dto.CatalogPrice;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.stripe.model.Price;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StripeApiCatalogClientTest {
+
+    private final StripeGateway gateway = mock(StripeGateway.class);
+    private final StripeApiCatalogClient client = new StripeApiCatalogClient(gateway);
+
+    @Test
+    void convertsMinorUnitsWithTheCurrencyExponent() throws Exception {
+        when(gateway.retrievePrice("price_usd")).thenReturn(price("price_usd", 999L, "usd"));
+        when(gateway.retrievePrice("price_jpy")).thenReturn(price("price_jpy", 1500L, "jpy"));
+        when(gateway.retrievePrice("price_kwd")).thenReturn(price("price_kwd", 4990L, "kwd"));
+
+        CatalogPrice usd = client.fetchPrice(SubscriptionPlan.BASIC, "price_usd");
+        assertEquals(new BigDecimal("9.99"), usd.amount());
+        assertEquals("USD", usd.currency());
+        assertEquals(new BigDecimal("1500"), client.fetchPrice(SubscriptionPlan.BASIC, "price_jpy").amount());
+        assertEquals(new BigDecimal("4.990"), client.fetchPrice(SubscriptionPlan.BASIC, "price_kwd").amount());
+    }
+
+    @Test
+    void rejectsPricesWithoutAUnitAmount() throws Exception {
+        when(gateway.retrievePrice("price_tiered")).thenReturn(price("price_tiered", null, "usd"));
+
+        assertThrows(IllegalStateException.class, () -> client.fetchPrice(SubscriptionPlan.BASIC, "price_tiered"));
+    }
+
+    private static Price price(String id, Long unitAmount, String currency) {
+        Price price = new Price();
+        price.setId(id);
+        price.setProduct("prod_1");
+        price.setUnitAmount(unitAmount);
+        price.setCurrency(currency);
+        price.setActive(true);
+        return price;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.config.StripeCatalogProperties;
+import com.example.springsaas.payment.service.StripeEventHandler;
+import com.example.springsaas.subscriptionmanagement.dto.CatalogPrice;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Event;
+import com.stripe.net.ApiResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class StripeCatalogServiceTest {
+
+    private final FakeCatalogClient client = new FakeCatalogClient();
+    private StripeCatalogService service;
+
+    @BeforeEach
+    void setUp() {
+        StripeCatalogProperties properties = new StripeCatalogProperties();
+        properties.getPrices().put(SubscriptionPlan.BASIC, "price_basic");
+        properties.getPrices().put(SubscriptionPlan.PREMIUM, "price_premium");
+        service = new StripeCatalogService(properties, client);
+        client.amounts.put("price_basic", "9.99");
+        client.amounts.put("price_premium", "19.99");
+    }
+
+    @Test
+    void servesPricesFromTheSnapshotWithoutCallingStripe() {
+        service.refresh();
+        int calls = client.calls;
+
+        assertEquals(new BigDecimal("9.99"), service.getPrice(SubscriptionPlan.BASIC).amount());
+        assertEquals(SubscriptionPlan.PREMIUM, service.findByPriceId("price_premium").orElseThrow().plan());
+        assertEquals(calls, client.calls);
+        assertTrue(service.isComplete());
+    }
+
+    @Test
+    void missingPriceFailsFastWithoutCallingStripe() {
+        client.failing.put("price_basic", new ApiConnectionException("Stripe is down"));
+        service.refresh();
+        int calls = client.calls;
+
+        assertThrows(IllegalStateException.class, () -> service.getPrice(SubscriptionPlan.BASIC));
+        assertThrows(IllegalArgumentException.class, () -> service.getPrice(SubscriptionPlan.ENTERPRISE));
+        assertEquals(calls, client.calls);
+        // The other price still loaded
+        assertEquals(new BigDecimal("19.99"), service.getPrice(SubscriptionPlan.PREMIUM).amount());
+    }
+
+    @Test
+    void backgroundRetryLoadsMissingPricesThenStops() {
+        client.failing.put("price_basic", new ApiConnectionException("Stripe is down"));
+        service.refresh();
+        assertFalse(service.isComplete());
+
+        client.failing.clear();
+        service.retryUntilLoaded();
+        assertTrue(service.isComplete());
+        assertEquals(new BigDecimal("9.99"), service.getPrice(SubscriptionPlan.BASIC).amount());
+
+        int calls = client.calls;
+        service.retryUntilLoaded();
+        assertEquals(calls, client.calls);
+    }
+
+    @Test
+    void failedRefreshKeepsThePreviousPrice() {
+        service.refresh();
+        client.amounts.put("price_basic", "12.00");
+        client.amounts.put("price_premium", "24.00");
+        client.failing.put("price_basic", new IllegalStateException("no unit amount"));
+
+        service.refresh();
+
+        assertEquals(new BigDecimal("9.99"), service.getPrice(SubscriptionPlan.BASIC).amount());
+        assertEquals(new BigDecimal("24.00"), service.getPrice(SubscriptionPlan.PREMIUM).amount());
+        assertEquals(1L, service.metrics().get("refreshFailures"));
+    }
+
+    @Test
+    void priceWebhookRefreshesTheSnapshot() {
+        service.refresh();
+        client.amounts.put("price_basic", "11.00");
+        StripeEventHandler handler = new StripeEventHandler(mock(SubscriptionService.class), service);
+
+        handler.handle(ApiResource.GSON.fromJson("""
+                {"id": "evt_1", "object": "event", "type": "price.updated", "api_version": "%s",
+                 "data": {"object": {"id": "price_basic", "object": "price"}}}
+                """.formatted(Stripe.API_VERSION), Event.class));
+
+        assertEquals(new BigDecimal("11.00"), service.getPrice(SubscriptionPlan.BASIC).amount());
+    }
+
+    private static final class FakeCatalogClient implements StripeCatalogClient {
+
+        private final Map<String, String> amounts = new HashMap<>();
+        private final Map<String, Exception> failing = new HashMap<>();
+        private int calls;
+
+        @Override
+        public CatalogPrice fetchPrice(SubscriptionPlan plan, String priceId) throws StripeException {
+            calls++;
+            Exception failure = failing.get(priceId);
+            if (failure instanceof StripeException stripeException) {
+                throw stripeException;
+            }
+            if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+            return new CatalogPrice(plan, priceId, "prod_" + plan, plan + " Plan",
+                    new BigDecimal(amounts.get(priceId)), "USD", true);
+        }
+    }
+}
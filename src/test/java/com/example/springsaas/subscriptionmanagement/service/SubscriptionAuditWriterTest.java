@@ -0,0 +1,175 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditEvent;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SubscriptionAuditWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    @TempDir
+    Path directory;
+
+    private Path journal;
+    private Path replaying;
+
+    @BeforeEach
+    void setUp() {
+        journal = directory.resolve("audit-journal.jsonl");
+        replaying = directory.resolve("audit-journal.jsonl.replaying");
+        stubSequence();
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void syncModeInsertsOnTheCallingThread() {
+        SubscriptionAuditWriter writer = syncWriter();
+        writer.start();
+
+        writer.record(event(7L, "SUBSCRIPTION_ACTIVATED"));
+
+        assertEquals(List.of(List.of(7L)), insertedUserIds(1));
+        assertEquals(1L, writer.metrics().get("written"));
+        assertEquals(0, writer.metrics().get("bufferDepth"));
+    }
+
+    @Test
+    void replaysAFileLeftByACrashedReplayBeforeTheJournal() throws Exception {
+        writeEvents(replaying, event(1L, "LEFTOVER"), event(2L, "LEFTOVER"));
+        writeEvents(journal, event(3L, "SPILLED"));
+
+        syncWriter().start();
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), insertedUserIds(2));
+        assertFalse(Files.exists(replaying));
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    void failedReplayKeepsBothFilesForTheNextAttempt() throws Exception {
+        writeEvents(replaying, event(1L, "LEFTOVER"));
+        writeEvents(journal, event(2L, "SPILLED"));
+        List<String> leftover = Files.readAllLines(replaying);
+        List<String> spilled = Files.readAllLines(journal);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        SubscriptionAuditWriter writer = syncWriter();
+        writer.start();
+
+        // The pending journal must not have been moved onto the unreplayed file
+        assertEquals(leftover, Files.readAllLines(replaying));
+        assertEquals(spilled, Files.readAllLines(journal));
+
+        reset(jdbcTemplate);
+        stubSequence();
+        writer.start();
+
+        assertEquals(List.of(List.of(1L), List.of(2L)), insertedUserIds(2));
+        assertFalse(Files.exists(replaying));
+        assertFalse(Files.exists(journal));
+    }
+
+    @Test
+    void recordAfterCommitWaitsForTheCommit() {
+        SubscriptionAuditWriter writer = syncWriter();
+        writer.start();
+        TransactionSynchronizationManager.initSynchronization();
+
+        writer.recordAfterCommit(event(5L, "PLAN_CHANGED"));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(List.of(List.of(5L)), insertedUserIds(1));
+    }
+
+    @Test
+    void recordAfterCommitDropsTheEventOnRollback() {
+        SubscriptionAuditWriter writer = syncWriter();
+        writer.start();
+        TransactionSynchronizationManager.initSynchronization();
+
+        writer.recordAfterCommit(event(5L, "PLAN_CHANGED"));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+        assertTrue(TransactionSynchronizationManager.isSynchronizationActive());
+    }
+
+    private SubscriptionAuditWriter syncWriter() {
+        return new SubscriptionAuditWriter(jdbcTemplate, objectMapper, "sync", 16, 100, 1000, journal.toString());
+    }
+
+    private void stubSequence() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), any(Object[].class))).thenReturn(List.of(50L));
+    }
+
+    /**
+     * User ids of each multi-row INSERT, in call order. Every row starts with (id, user_id, ...).
+     */
+    private List<List<Long>> insertedUserIds(int expectedInserts) {
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(expectedInserts)).update(startsWith("INSERT INTO subscription_audits"), args.capture());
+        List<List<Long>> userIds = new ArrayList<>();
+        for (Object[] call : args.getAllValues()) {
+            List<Long> rows = new ArrayList<>();
+            for (int i = 1; i < call.length; i += 8) {
+                rows.add((Long) call[i]);
+            }
+            userIds.add(rows);
+        }
+        return userIds;
+    }
+
+    private void writeEvents(Path file, SubscriptionAuditEvent... events) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (SubscriptionAuditEvent event : events) {
+            lines.add(objectMapper.writeValueAsString(event));
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static SubscriptionAuditEvent event(Long userId, String status) {
+        return new SubscriptionAuditEvent(userId, SubscriptionPlan.values()[0], null, status, null, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.springsaas.subscriptionmanagement.service;
+
+import com.example.springsaas.authentication.entity.User;
+import com.example.springsaas.authentication.repository.UserRepository;
+import com.example.springsaas.config.StripeCatalogProperties;
+import com.example.springsaas.payment.service.FakeStripeGateway;
+import com.example.springsaas.payment.service.StripeOperation;
+import com.example.springsaas.security.AuthenticatedUser;
+import com.example.springsaas.subscriptionmanagement.dto.CatalogPrice;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionAuditEvent;
+import com.example.springsaas.subscriptionmanagement.dto.SubscriptionRequest;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionPlan;
+import com.example.springsaas.subscriptionmanagement.entity.Subscription.SubscriptionStatus;
+import com.example.springsaas.subscriptionmanagement.repository.SubscriptionRepository;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.StripeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the checkout and activation flows against {@link FakeStripeGateway} with injected Stripe
+ * failures. Repositories are mocked; transactions commit immediately.
+ */
+class SubscriptionServiceTest {
+
+    private static final String BASIC_PRICE = "price_basic";
+
+    private final SubscriptionRepository subscriptionRepository = mock(SubscriptionRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SubscriptionAuditWriter auditWriter = mock(SubscriptionAuditWriter.class);
+    private final StripeCatalogService catalogService = mock(StripeCatalogService.class);
+    private final ActiveSubscriptionCache activeSubscriptionCache = mock(ActiveSubscriptionCache.class);
+    private final EntitlementService entitlementService = mock(EntitlementService.class);
+    private final List<SubscriptionAuditEvent> audits = new ArrayList<>();
+
+    private FakeStripeGateway stripe;
+    private SubscriptionService service;
+    private User user;
+    private Subscription stored;
+
+    @BeforeEach
+    void setUp() {
+        StripeCatalogProperties catalog = new StripeCatalogProperties();
+        catalog.getPrices().put(SubscriptionPlan.BASIC, BASIC_PRICE);
+        stripe = new FakeStripeGateway(catalog);
+        service = new SubscriptionService(subscriptionRepository, auditWriter, userRepository, catalogService,
+                activeSubscriptionCache, entitlementService, stripe,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+
+        user = new User("Ada", "Lovelace", "ada@example.com", "secret");
+        user.setId(7L);
+        user.setEnabled(true);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+        when(userRepository.findByStripeCustomerId(anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0).equals(user.getStripeCustomerId())
+                        ? Optional.of(user) : Optional.empty());
+
+        when(catalogService.isOffered(SubscriptionPlan.BASIC)).thenReturn(true);
+        when(catalogService.getPrice(SubscriptionPlan.BASIC)).thenReturn(new CatalogPrice(SubscriptionPlan.BASIC,
+                BASIC_PRICE, "prod_fake_basic", "Basic Plan", new BigDecimal("9.99"), "usd", true));
+
+        when(subscriptionRepository.save(any(Subscription.class))).thenAnswer(invocation -> {
+            Subscription subscription = invocation.getArgument(0);
+            if (subscription.getId() == null) {
+                subscription.setId(100L);
+            }
+            stored = subscription;
+            return subscription;
+        });
+        when(subscriptionRepository.findById(100L)).thenAnswer(invocation -> Optional.ofNullable(stored));
+        when(subscriptionRepository.findByUserAndStatus(user, SubscriptionStatus.PENDING))
+                .thenAnswer(invocation -> Optional.ofNullable(stored)
+                        .filter(subscription -> subscription.getStatus() == SubscriptionStatus.PENDING));
+
+        doAnswer(invocation -> audits.add(invocation.getArgument(0))).when(auditWriter).record(any());
+        doAnswer(invocation -> audits.add(invocation.getArgument(0))).when(auditWriter).recordAfterCommit(any());
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(7L, user.getEmail(), 1, true), null, List.of()));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void customerCreationFailureLeavesNothingBehind() {
+        ApiConnectionException failure = new ApiConnectionException("Stripe is down");
+        stripe.failNext(StripeOperation.CREATE_CUSTOMER, failure);
+
+        assertSame(failure, assertThrows(StripeException.class, () -> service.createCheckoutSession(basicRequest())));
+
+        assertNull(user.getStripeCustomerId());
+        assertNull(stored);
+        assertEquals(List.of("CHECKOUT_FAILED"), auditStatuses());
+        assertEquals("Stripe is down", audits.get(0).errorMessage());
+    }
+
+    @Test
+    void checkoutFailureKeepsTheCustomerAndRetryReusesIt() throws Exception {
+        stripe.failNext(StripeOperation.CREATE_CHECKOUT_SESSION, new ApiConnectionException("read timed out"));
+
+        assertThrows(StripeException.class, () -> service.createCheckoutSession(basicRequest()));
+        String customerId = user.getStripeCustomerId();
+        assertNotNull(customerId);
+        assertNull(stored);
+
+        Map<String, String> session = service.createCheckoutSession(basicRequest());
+
+        assertNotNull(session.get("sessionId"));
+        assertEquals(customerId, user.getStripeCustomerId());
+        assertEquals(customerId, stored.getStripeCustomerId());
+        assertEquals(SubscriptionStatus.PENDING, stored.getStatus());
+        assertEquals(List.of("CHECKOUT_FAILED", "CHECKOUT_CREATED"), auditStatuses());
+    }
+
+    @Test
+    void customerCreationIsIdempotentPerUser() throws Exception {
+        String first = stripe.createCustomer(user.getEmail(), "Ada Lovelace", "customer-user-7").getId();
+
+        service.createCheckoutSession(basicRequest());
+
+        // A lost response from an earlier attempt must not leave the user with a second customer
+        assertEquals(first, user.getStripeCustomerId());
+    }
+
+    @Test
+    void activationRetriesAfterStripeFailure() throws Exception {
+        String sessionId = service.createCheckoutSession(basicRequest()).get("sessionId");
+        stripe.failNext(StripeOperation.RETRIEVE_SUBSCRIPTION, new ApiConnectionException("connection reset"));
+
+        assertThrows(StripeException.class, () -> service.activateSubscription(sessionId));
+        assertEquals(SubscriptionStatus.PENDING, stored.getStatus());
+        verify(entitlementService, never()).applyAfterCommit(any(), any(), any());
+
+        service.activateSubscription(sessionId);
+
+        assertEquals(SubscriptionStatus.ACTIVE, stored.getStatus());
+        assertEquals(stripe.retrieveCheckoutSession(sessionId).getSubscription(), stored.getStripeSubscriptionId());
+        verify(entitlementService).applyAfterCommit(7L, SubscriptionPlan.BASIC, SubscriptionStatus.ACTIVE);
+        verify(activeSubscriptionCache).invalidateAfterCommit(7L);
+        assertEquals(List.of("CHECKOUT_CREATED", "SUBSCRIPTION_ACTIVATED"), auditStatuses());
+    }
+
+    @Test
+    void webhookActivationFailureIsAuditedAndLeavesThePendingSubscription() throws Exception {
+        String sessionId = service.createCheckoutSession(basicRequest()).get("sessionId");
+        stripe.failNext(StripeOperation.RETRIEVE_SUBSCRIPTION, new ApiConnectionException("connection reset"));
+
+        assertThrows(RuntimeException.class,
+                () -> service.handleCheckoutSessionCompleted(stripe.retrieveCheckoutSession(sessionId)));
+
+        assertEquals(SubscriptionStatus.PENDING, stored.getStatus());
+        assertEquals(List.of("CHECKOUT_CREATED", "ACTIVATION_FAILED"), auditStatuses());
+    }
+
+    private static SubscriptionRequest basicRequest() {
+        SubscriptionRequest request = new SubscriptionRequest();
+        request.setPlan(SubscriptionPlan.BASIC);
+        return request;
+    }
+
+    private List<String> auditStatuses() {
+        return audits.stream().map(SubscriptionAuditEvent::status).toList();
+    }
+}
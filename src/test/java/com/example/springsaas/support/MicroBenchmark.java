@@ -0,0 +1,100 @@
+package com.example.springsaas.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Minimal timing harness for the opt-in benchmark tests. Runs a warm-up phase so the JIT has
+ * compiled the code under test, then reports the mean time per operation. Results are printed
+ * rather than asserted tightly; the tests only assert relations that hold by a wide margin.
+ *
+ * <p>Benchmarks only run with {@code RUN_BENCHMARKS=true}, e.g.
+ * {@code RUN_BENCHMARKS=true mvn test -Dtest='*BenchmarkTest'}.
+ */
+public final class MicroBenchmark {
+
+    public static final String ENABLED_VARIABLE = "RUN_BENCHMARKS";
+
+    private static volatile long sink;
+
+    private MicroBenchmark() {
+    }
+
+    /**
+     * Mean nanoseconds per call of {@code operation}, measured on the calling thread.
+     */
+    public static double nanosPerOp(String name, int warmupOps, int measuredOps, IntConsumer operation) {
+        return nanosPerOp(name, 1, warmupOps, measuredOps, operation);
+    }
+
+    /**
+     * Mean nanoseconds per call, as seen by each caller, with {@code threads} threads calling
+     * {@code operation} concurrently, {@code measuredOps} times each. The argument is the
+     * per-thread op index.
+     */
+    public static double nanosPerOp(String name, int threads, int warmupOps, int measuredOps, IntConsumer operation) {
+        run(threads, warmupOps, operation);
+        long elapsed = run(threads, measuredOps, operation);
+        return report(name, threads, measuredOps, elapsed);
+    }
+
+    /**
+     * Prints and returns the mean nanoseconds per operation of a run timed by the caller.
+     */
+    public static double report(String name, int threads, long ops, long elapsedNanos) {
+        double perOp = (double) elapsedNanos / ops;
+        System.out.printf("%-50s %3d thread(s) %12.1f ns/op%n", name, threads, perOp);
+        return perOp;
+    }
+
+    /**
+     * Keeps a result alive so the JIT cannot eliminate the work that produced it.
+     */
+    public static void consume(Object value) {
+        sink += System.identityHashCode(value);
+    }
+
+    public static void consume(long value) {
+        sink += value;
+    }
+
+    private static long run(int threads, int ops, IntConsumer operation) {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        LongAdder busyNanos = new LongAdder();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    long began = System.nanoTime();
+                    for (int i = 0; i < ops; i++) {
+                        operation.accept(i);
+                    }
+                    busyNanos.add(System.nanoTime() - began);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "benchmark-" + t);
+            thread.start();
+        }
+        start.countDown();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError("Benchmark operation failed", failures.get(0));
+        }
+        return busyNanos.sum() / threads;
+    }
+}